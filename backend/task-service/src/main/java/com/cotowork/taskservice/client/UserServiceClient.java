@@ -0,0 +1,78 @@
+package com.cotowork.taskservice.client;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Gọi user-service (services.user-service.url).
+ * Chuyển tiếp header Authorization của request hiện tại - user-service tự kiểm quyền.
+ */
+@Component
+@Slf4j
+public class UserServiceClient {
+
+    private final RestClient restClient;
+    private final int pageSize;
+
+    public UserServiceClient(RestClient.Builder builder,
+                             @Value("${services.user-service.url}") String baseUrl,
+                             @Value("${services.user-service.id-page-size:5000}") int pageSize) {
+        this.restClient = builder.baseUrl(baseUrl).build();
+        this.pageSize = pageSize;
+    }
+
+    @Data
+    public static class UserIdPage {
+        private List<Long> ids;
+        private Long nextAfterId;
+    }
+
+    /**
+     * Duyệt id mọi user đang active theo từng trang (keyset afterId),
+     * mỗi trang gọi consumer 1 lần → bộ nhớ chỉ giữ 1 trang.
+     */
+    public void forEachActiveUserIdPage(Consumer<List<Long>> consumer) {
+        String authorization = currentAuthorization();
+        Long afterId = 0L;
+        while (afterId != null) {
+            UserIdPage page = fetchActiveIds(afterId, authorization);
+            if (page == null || page.getIds() == null || page.getIds().isEmpty()) return;
+            consumer.accept(page.getIds());
+            afterId = page.getNextAfterId();
+        }
+    }
+
+    private UserIdPage fetchActiveIds(Long afterId, String authorization) {
+        try {
+            return restClient.get()
+                    .uri("/api/users/internal/active-ids?afterId={afterId}&limit={limit}", afterId, pageSize)
+                    .headers(h -> {
+                        if (authorization != null) h.set(HttpHeaders.AUTHORIZATION, authorization);
+                    })
+                    .retrieve()
+                    .body(UserIdPage.class);
+        } catch (RestClientException e) {
+            log.error("[UserServiceClient] active-ids afterId={} failed: {}", afterId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Không lấy được danh sách user từ user-service");
+        }
+    }
+
+    private String currentAuthorization() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            return attrs.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.cotowork.taskservice.config;
+
+import com.cotowork.taskservice.entity.NotificationType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Chính sách lưu trữ notification (prefix: notification.retention).
+ *
+ * Ví dụ application.properties:
+ *   notification.retention.default-read-days=90
+ *   notification.retention.read-days-by-type.TASK_DUE_SOON=30
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "notification.retention")
+public class NotificationRetentionProperties {
+
+    /** Bật/tắt job dọn dẹp */
+    private boolean enabled = true;
+
+    /** Số ngày giữ notification ĐÃ ĐỌC nếu type không cấu hình riêng */
+    private int defaultReadDays = 90;
+
+    /** Số ngày giữ notification CHƯA ĐỌC (áp dụng mọi type) */
+    private int unreadDays = 365;
+
+    /** Ghi đè số ngày giữ notification đã đọc theo từng type */
+    private Map<NotificationType, Integer> readDaysByType = new EnumMap<>(NotificationType.class);
+
+    /** Số dòng tối đa mỗi lệnh DELETE - giữ transaction ngắn, tránh lock lâu */
+    private int batchSize = 5000;
+
+    /** Giới hạn số batch mỗi lần chạy, phần còn lại để lần sau */
+    private int maxBatchesPerRun = 200;
+
+    /** Nghỉ giữa các batch để nhường I/O cho request thật */
+    private long batchPauseMs = 200;
+
+    /** Số partition tháng tạo trước */
+    private int partitionsAhead = 3;
+
+    /** lock_timeout khi DROP partition - không chờ lâu nếu bảng đang bận */
+    private String dropLockTimeout = "2s";
+
+    public int readDaysFor(NotificationType type) {
+        return readDaysByType.getOrDefault(type, defaultReadDays);
+    }
+
+    /**
+     * Partition chỉ được DROP khi mọi dòng trong đó đã quá hạn theo chính sách dài nhất.
+     */
+    public int maxRetentionDays() {
+        int max = Math.max(defaultReadDays, unreadDays);
+        for (Integer days : readDaysByType.values()) {
+            if (days != null) max = Math.max(max, days);
+        }
+        return max;
+    }
+}
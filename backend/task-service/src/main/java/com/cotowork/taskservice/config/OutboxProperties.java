@@ -0,0 +1,38 @@
+package com.cotowork.taskservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình outbox relay (prefix: app.outbox).
+ * Thông lượng gửi điều chỉnh bằng concurrency × batch-size.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /** Bật/tắt relay worker (outbox vẫn được ghi) */
+    private boolean relayEnabled = true;
+
+    /** Số worker relay chạy song song (SKIP LOCKED nên không giẫm lên nhau) */
+    private int concurrency = 2;
+
+    /** Số sự kiện mỗi worker lấy trong 1 transaction */
+    private int batchSize = 100;
+
+    /** Nghỉ khi không còn sự kiện đến hạn */
+    private long pollIntervalMs = 200;
+
+    /** Retry: base × 2^attempts, tối đa maxBackoffMs; quá maxAttempts → FAILED */
+    private int maxAttempts = 10;
+    private long baseBackoffMs = 1000;
+    private long maxBackoffMs = 300_000;
+
+    /** Exchange RabbitMQ nhận sự kiện task/notification (routing key = event_type) */
+    private String exchange = "cotowork.events";
+
+    /** Giữ sự kiện SENT bao lâu trước khi xoá */
+    private int sentRetentionHours = 24;
+}
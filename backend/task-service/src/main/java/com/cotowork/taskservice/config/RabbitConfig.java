@@ -0,0 +1,15 @@
+package com.cotowork.taskservice.config;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitConfig {
+
+    /** Exchange cho sự kiện outbox; service khác tự bind queue theo routing key (task.*, notification.*) */
+    @Bean
+    public TopicExchange eventsExchange(OutboxProperties properties) {
+        return new TopicExchange(properties.getExchange(), true, false);
+    }
+}
@@ -0,0 +1,24 @@
+package com.cotowork.taskservice.config;
+
+import com.cotowork.taskservice.security.TokenRevocationChecker;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis pub/sub: nhận sự kiện thu hồi token do user-service publish
+ */
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TokenRevocationChecker revocationChecker) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(revocationChecker, new ChannelTopic(TokenRevocationChecker.CHANNEL));
+        return container;
+    }
+}
@@ -1,8 +1,10 @@
 package com.cotowork.taskservice.config;
 
 import com.cotowork.taskservice.security.JwtUtil;
+import com.cotowork.taskservice.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -13,12 +15,18 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -26,12 +34,32 @@ import java.util.List;
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtUtil jwtUtil; // JwtUtil của project - chỉ dùng extract*() methods
+    private static final Pattern UNIT_TOPIC = Pattern.compile("^/topic/unit/(\\d+)/.*$");
+    private static final String SESSION_ROLE = "role";
+    private static final String SESSION_UNIT_ID = "unitId";
+
+    private final JwtUtil jwtUtil; // JwtUtil của project - chỉ dùng verify()
+    private final WebSocketTransportProperties transport;
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    /** Scheduler riêng cho heartbeat STOMP, tách khỏi taskScheduler của @Scheduled */
+    @Bean
+    public ThreadPoolTaskScheduler wsHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(transport.getHeartbeatPoolSize());
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        return scheduler;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Server → Client: /queue (user-specific), /topic (broadcast)
-        config.enableSimpleBroker("/queue", "/topic");
+        // Heartbeat phát hiện client chết/kẹt để giải phóng session thay vì giữ mãi
+        config.enableSimpleBroker("/queue", "/topic")
+                .setHeartbeatValue(new long[]{transport.getHeartbeatSendMs(), transport.getHeartbeatReceiveMs()})
+                .setTaskScheduler(wsHeartbeatScheduler());
+        // Outbound pool nhiều thread: giữ đúng thứ tự message trong từng session
+        config.setPreservePublishOrder(true);
         // Client → Server
         config.setApplicationDestinationPrefixes("/app");
         // Prefix định danh kênh riêng từng user
@@ -48,13 +76,40 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .withSockJS();                 // Fallback cho browser không support WS
     }
 
+    /**
+     * Giới hạn hàng đợi gửi của từng session: client chậm không giữ bộ nhớ/thread mãi.
+     * Xem WebSocketTransportProperties và WebSocketSessionMonitor (metrics + chính sách DROP).
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(transport.getSendBufferSizeLimit())
+                .setSendTimeLimit(transport.getSendTimeLimitMs())
+                .setMessageSizeLimit(transport.getMessageSizeLimit())
+                .addDecoratorFactory(sessionMonitor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        WebSocketTransportProperties.Pool pool = transport.getOutbound();
+        registration.taskExecutor()
+                .corePoolSize(pool.getCorePoolSize())
+                .maxPoolSize(pool.getMaxPoolSize())
+                .queueCapacity(pool.getQueueCapacity());
+    }
+
     /**
      * Xác thực JWT khi client gửi CONNECT frame.
-     * Dùng đúng JwtUtil.extractUserId() / extractRole() / validateToken()
+     * Dùng đúng JwtUtil.verify()
      * giống JwtAuthenticationFilter của project.
      */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        WebSocketTransportProperties.Pool pool = transport.getInbound();
+        registration.taskExecutor()
+                .corePoolSize(pool.getCorePoolSize())
+                .maxPoolSize(pool.getMaxPoolSize())
+                .queueCapacity(pool.getQueueCapacity());
+
         registration.interceptors(new ChannelInterceptor() {
 
             @Override
@@ -74,15 +129,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
                     String token = authHeader.substring(7);
 
-                    // Dùng đúng jwtUtil.validateToken() - giống JwtAuthenticationFilter
-                    if (!jwtUtil.validateToken(token)) {
+                    // Cùng đường verify (và cache) với JwtAuthenticationFilter
+                    Optional<VerifiedToken> verified = jwtUtil.verify(token);
+                    if (verified.isEmpty()) {
                         log.warn("[WS] CONNECT rejected: invalid token");
                         return null;
                     }
 
                     try {
-                        Long userId   = jwtUtil.extractUserId(token);
-                        String role   = jwtUtil.extractRole(token);
+                        Long userId   = verified.get().userId();
+                        String role   = verified.get().role();
+                        Long unitId   = verified.get().unitId();
 
                         // Principal name = userId.toString()
                         // → SimpMessagingTemplate.convertAndSendToUser(userId.toString(), ...)
@@ -95,7 +152,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                 );
                         accessor.setUser(auth);
 
-                        log.debug("[WS] Connected: userId={}, role={}", userId, role);
+                        // Giữ lại để kiểm tra SUBSCRIBE /topic/unit/{unitId}/...
+                        Map<String, Object> session = accessor.getSessionAttributes();
+                        if (session != null) {
+                            session.put(SESSION_ROLE, role);
+                            if (unitId != null) session.put(SESSION_UNIT_ID, unitId);
+                        }
+
+                        log.debug("[WS] Connected: userId={}, role={}, unitId={}", userId, role, unitId);
 
                     } catch (Exception e) {
                         log.error("[WS] CONNECT error: {}", e.getMessage());
@@ -103,8 +167,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     }
                 }
 
+                if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                        && !canSubscribe(accessor.getDestination(), accessor.getSessionAttributes())) {
+                    log.warn("[WS] SUBSCRIBE rejected: {} (user={})", accessor.getDestination(),
+                            accessor.getUser() != null ? accessor.getUser().getName() : null);
+                    return null;
+                }
+
                 return message;
             }
         });
     }
+
+    /**
+     * /topic/unit/{unitId}/... chỉ cho thành viên của unit đó (theo unitId trong JWT), ADMIN được xem mọi unit.
+     */
+    private boolean canSubscribe(String destination, Map<String, Object> session) {
+        if (destination == null) return true;
+        Matcher m = UNIT_TOPIC.matcher(destination);
+        if (!m.matches()) return true;
+        if (session == null) return false;
+        if ("ADMIN".equals(session.get(SESSION_ROLE))) return true;
+        Object unitId = session.get(SESSION_UNIT_ID);
+        return unitId != null && unitId.toString().equals(m.group(1));
+    }
 }
\ No newline at end of file
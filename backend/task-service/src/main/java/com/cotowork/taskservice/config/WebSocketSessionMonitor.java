@@ -0,0 +1,165 @@
+package com.cotowork.taskservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bọc mỗi WebSocket session bằng hàng đợi gửi có giới hạn (WebSocketTransportProperties)
+ * và theo dõi các session đang mở để xuất metrics:
+ *
+ * - websocket.session.send_buffer{stat=max|total}: số byte đang chờ gửi
+ * - websocket.sessions.stalled: session có 1 lần gửi kéo dài quá nửa send-time-limit
+ * - websocket.disconnects{reason=...}: lý do đóng kết nối (slow_consumer = bị server cắt vì chậm)
+ * - websocket.channel.queue{channel=inbound|outbound}: hàng đợi thread pool của broker
+ *
+ * Decorator của Spring (SubProtocolWebSocketHandler) luôn dùng TERMINATE; lớp bọc ở đây
+ * nằm bên trong nên overflow-strategy=DROP có hiệu lực, hàng đợi của Spring khi đó gần như rỗng.
+ */
+@Component
+@Slf4j
+public class WebSocketSessionMonitor implements WebSocketHandlerDecoratorFactory {
+
+    private final WebSocketTransportProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    public WebSocketSessionMonitor(WebSocketTransportProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gaugeMapSize("websocket.sessions.open", List.of(), sessions);
+        Gauge.builder("websocket.session.send_buffer", this, WebSocketSessionMonitor::maxBufferSize)
+                .description("Số byte chờ gửi lớn nhất trong các session")
+                .tag("stat", "max")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("websocket.session.send_buffer", this, WebSocketSessionMonitor::totalBufferSize)
+                .description("Tổng số byte chờ gửi của mọi session")
+                .tag("stat", "total")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions.stalled", this, WebSocketSessionMonitor::stalledSessions)
+                .description("Số session có lần gửi đang kẹt quá nửa send-time-limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                ConcurrentWebSocketSessionDecorator bounded = new ConcurrentWebSocketSessionDecorator(
+                        session,
+                        properties.getSendTimeLimitMs(),
+                        properties.getSendBufferSizeLimit(),
+                        properties.getOverflowStrategy());
+                sessions.put(session.getId(), bounded);
+                super.afterConnectionEstablished(bounded);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(bounded(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(bounded(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                WebSocketSession bounded = bounded(session);
+                sessions.remove(session.getId());
+                String reason = reason(closeStatus);
+                meterRegistry.counter("websocket.disconnects", "reason", reason).increment();
+                if ("slow_consumer".equals(reason)) {
+                    log.warn("[WS] Session {} closed: slow consumer (user={})", session.getId(),
+                            session.getPrincipal() != null ? session.getPrincipal().getName() : null);
+                }
+                super.afterConnectionClosed(bounded, closeStatus);
+            }
+        };
+    }
+
+    /** Gauge cho thread pool của clientInbound/OutboundChannel - bean chỉ có sau khi context sẵn sàng */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindChannelExecutors(ApplicationReadyEvent event) {
+        bindExecutor(event, "clientInboundChannelExecutor", "inbound");
+        bindExecutor(event, "clientOutboundChannelExecutor", "outbound");
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    private WebSocketSession bounded(WebSocketSession session) {
+        WebSocketSession bounded = sessions.get(session.getId());
+        return bounded != null ? bounded : session;
+    }
+
+    private void bindExecutor(ApplicationReadyEvent event, String beanName, String channel) {
+        if (!event.getApplicationContext().containsBean(beanName)) return;
+        ThreadPoolTaskExecutor executor = event.getApplicationContext().getBean(beanName, ThreadPoolTaskExecutor.class);
+        Gauge.builder("websocket.channel.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Số message chờ trong hàng đợi thread pool của channel")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    private double maxBufferSize() {
+        long max = 0;
+        for (ConcurrentWebSocketSessionDecorator s : sessions.values()) {
+            max = Math.max(max, s.getBufferSize());
+        }
+        return max;
+    }
+
+    private double totalBufferSize() {
+        long total = 0;
+        for (ConcurrentWebSocketSessionDecorator s : sessions.values()) {
+            total += s.getBufferSize();
+        }
+        return total;
+    }
+
+    private double stalledSessions() {
+        long threshold = properties.getSendTimeLimitMs() / 2;
+        return sessions.values().stream()
+                .filter(s -> s.getTimeSinceSendStarted() > threshold)
+                .count();
+    }
+
+    private static String reason(CloseStatus status) {
+        if (status == null) return "unknown";
+        return switch (status.getCode()) {
+            case 1000 -> "normal";
+            case 1001 -> "going_away";
+            case 1002 -> "protocol_error";
+            case 1006 -> "abnormal";
+            case 1009 -> "too_big";
+            case 1011 -> "server_error";
+            case 4500 -> "slow_consumer";   // CloseStatus.SESSION_NOT_RELIABLE: vượt send limit
+            default -> "other";
+        };
+    }
+}
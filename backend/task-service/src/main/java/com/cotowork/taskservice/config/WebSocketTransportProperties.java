@@ -0,0 +1,55 @@
+package com.cotowork.taskservice.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+
+/**
+ * Giới hạn tài nguyên cho mỗi STOMP session và thread pool của broker (prefix: app.websocket.transport).
+ *
+ * Mỗi session có 1 hàng đợi gửi riêng: khi client chậm (mạng di động yếu, tab bị treo)
+ * message dồn lại tới send-buffer-size-limit thì áp dụng overflow-strategy;
+ * 1 lần gửi bị kẹt quá send-time-limit-ms thì session luôn bị đóng.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.websocket.transport")
+public class WebSocketTransportProperties {
+
+    /** Số byte tối đa chờ gửi cho 1 session */
+    private int sendBufferSizeLimit = 512 * 1024;
+
+    /** Thời gian tối đa cho 1 lần gửi bị kẹt */
+    private int sendTimeLimitMs = 15_000;
+
+    /** Kích thước tối đa 1 frame client gửi lên */
+    private int messageSizeLimit = 64 * 1024;
+
+    /** TERMINATE: đóng session khi đầy hàng đợi; DROP: bỏ message cũ nhất, giữ kết nối */
+    private OverflowStrategy overflowStrategy = OverflowStrategy.TERMINATE;
+
+    /** Heartbeat server→client và client→server (ms), 0 = tắt */
+    private long heartbeatSendMs = 10_000;
+    private long heartbeatReceiveMs = 10_000;
+
+    /** Scheduler riêng cho heartbeat - không tranh thread với các job @Scheduled */
+    private int heartbeatPoolSize = 1;
+
+    /** clientInboundChannel: frame từ client (CONNECT, SUBSCRIBE, ...) */
+    private Pool inbound = new Pool(4, 8, 1000);
+
+    /** clientOutboundChannel: ghi message xuống socket của từng session */
+    private Pool outbound = new Pool(4, 16, 10_000);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int corePoolSize;
+        private int maxPoolSize;
+        private int queueCapacity;
+    }
+}
@@ -1,11 +1,14 @@
 package com.cotowork.taskservice.controller;
 
 import com.cotowork.taskservice.dto.SendNotificationRequest;
+import com.cotowork.taskservice.security.StreamTicketService;
 import com.cotowork.taskservice.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -15,6 +18,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final StreamTicketService streamTicketService;
 
     // ----------------------------------------------------------------
     // ADMIN / UNIT_MANAGER: Gửi thông báo
@@ -40,6 +44,31 @@ public class NotificationController {
         return ResponseEntity.ok(notificationService.getMyNotifications(page, size));
     }
 
+    // ----------------------------------------------------------------
+    // USER: Luồng realtime qua SSE (thay cho SockJS polling sau proxy)
+    // GET /api/notifications/stream
+    // EventSource không gửi được header Authorization → xác thực bằng ?ticket= lấy từ
+    // POST /stream-ticket. Vé chỉ dùng 1 lần nên khi mất kết nối client lấy vé mới và mở
+    // EventSource mới với ?lastEventId= (id thông báo cuối đã nhận) thay cho header Last-Event-ID
+    // ----------------------------------------------------------------
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam
+    ) {
+        return notificationService.openStream(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+    }
+
+    // ----------------------------------------------------------------
+    // USER: Vé mở luồng SSE (sống ngắn, dùng 1 lần)
+    // POST /api/notifications/stream-ticket  → { "ticket": "...", "expiresIn": 30 }
+    // ----------------------------------------------------------------
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<Map<String, Object>> streamTicket(@RequestHeader("Authorization") String authorization) {
+        String ticket = streamTicketService.issue(authorization.substring("Bearer ".length()));
+        return ResponseEntity.ok(Map.of("ticket", ticket, "expiresIn", streamTicketService.ttlSeconds()));
+    }
+
     // ----------------------------------------------------------------
     // USER: Badge - số chưa đọc
     // GET /api/notifications/unread-count
@@ -60,10 +89,11 @@ public class NotificationController {
 
     // ----------------------------------------------------------------
     // USER: Đọc tất cả
-    // PATCH /api/notifications/read-all
+    // PATCH /api/notifications/read-all?upToId=123
+    // upToId = id receipt mới nhất client đang hiển thị (bỏ trống → receipt mới nhất hiện có)
     // ----------------------------------------------------------------
     @PatchMapping("/read-all")
-    public ResponseEntity<Map<String, Object>> markAllAsRead() {
-        return ResponseEntity.ok(notificationService.markAllAsRead());
+    public ResponseEntity<Map<String, Object>> markAllAsRead(@RequestParam(required = false) Long upToId) {
+        return ResponseEntity.ok(notificationService.markAllAsRead(upToId));
     }
 }
\ No newline at end of file
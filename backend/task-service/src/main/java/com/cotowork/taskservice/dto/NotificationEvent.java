@@ -0,0 +1,20 @@
+package com.cotowork.taskservice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Payload outbox cho 1 lần gửi thông báo.
+ * receiptIds[i] là receipt của recipientIds[i].
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationEvent {
+
+    private Long messageId;
+    private List<Long> receiptIds;
+    private List<Long> recipientIds;
+}
@@ -1,6 +1,7 @@
 package com.cotowork.taskservice.dto;
 
-import com.cotowork.taskservice.entity.Notification;
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.entity.NotificationReceipt;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -23,19 +24,20 @@ public class NotificationResponse {
     private LocalDateTime readAt;
     private LocalDateTime createdAt;
 
-    public static NotificationResponse from(Notification n) {
+    /** id trả về là id của receipt - client dùng id này để đánh dấu đã đọc */
+    public static NotificationResponse from(NotificationReceipt r, NotificationMessage m) {
         return NotificationResponse.builder()
-                .id(n.getId())
-                .senderId(n.getSenderId())
-                .senderName(n.getSenderName())
-                .title(n.getTitle())
-                .message(n.getMessage())
-                .type(n.getType().name())
-                .taskId(n.getTaskId())
-                .taskTitle(n.getTaskTitle())
-                .isRead(n.isRead())
-                .readAt(n.getReadAt())
-                .createdAt(n.getCreatedAt())
+                .id(r.getId())
+                .senderId(m.getSenderId())
+                .senderName(m.getSenderName())
+                .title(m.getTitle())
+                .message(m.getMessage())
+                .type(m.getType().name())
+                .taskId(m.getTaskId())
+                .taskTitle(m.getTaskTitle())
+                .isRead(r.isRead())
+                .readAt(r.getReadAt())
+                .createdAt(r.getCreatedAt())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.cotowork.taskservice.dto;
 
-import com.cotowork.taskservice.entity.Notification.NotificationType;
+import com.cotowork.taskservice.entity.NotificationType;
 import lombok.*;
 
 import java.util.List;
@@ -14,13 +14,19 @@ public class SendNotificationRequest {
     /** Danh sách ID người nhận. Để trống nếu sendToAll = true */
     private List<Long> recipientIds;
 
-    /** true = gửi tất cả user (recipientIds bị bỏ qua) */
+    /** true = gửi tất cả user (recipientIds bị bỏ qua), chỉ ADMIN */
     private boolean sendToAll;
 
     private String title;
     private String message;
     private NotificationType type;
 
+    /**
+     * Thông báo toàn phòng ban: push 1 lần lên /topic/unit/{unitId}/notifications
+     * thay vì push riêng từng người (receipt vẫn ghi cho từng recipientIds).
+     */
+    private Long unitId;
+
     // Task liên quan (tuỳ chọn - khi giao việc từ task)
     private Long taskId;
     private String taskTitle;
@@ -5,25 +5,22 @@ import lombok.*;
 
 import java.time.LocalDateTime;
 
+/**
+ * Nội dung thông báo - lưu 1 lần cho mỗi lần gửi, dùng chung cho mọi người nhận.
+ * Trạng thái đọc của từng người nằm ở {@link NotificationReceipt}.
+ */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notification_messages")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Notification {
+public class NotificationMessage {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // Người nhận
-    @Column(name = "recipient_id", nullable = false)
-    private Long recipientId;
-
-    @Column(name = "recipient_name")
-    private String recipientName;
-
     // Người gửi
     @Column(name = "sender_id", nullable = false)
     private Long senderId;
@@ -49,26 +46,15 @@ public class Notification {
     @Column(name = "task_title")
     private String taskTitle;
 
-    // Trạng thái
-    @Column(name = "is_read", nullable = false)
-    private boolean isRead = false;
-
-    @Column(name = "read_at")
-    private LocalDateTime readAt;
+    // Thông báo toàn phòng ban → push qua unit topic
+    @Column(name = "unit_id")
+    private Long unitId;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-    }
-
-    public enum NotificationType {
-        TASK_ASSIGNED,
-        TASK_UPDATED,
-        TASK_DUE_SOON,
-        TASK_OVERDUE,
-        GENERAL
+        if (createdAt == null) createdAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
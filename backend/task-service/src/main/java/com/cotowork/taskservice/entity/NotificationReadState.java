@@ -0,0 +1,36 @@
+package com.cotowork.taskservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mốc "đã đọc đến" của từng user.
+ *
+ * Receipt có id <= readUpToId được coi là đã đọc; receipt mới hơn mốc chỉ được coi là
+ * đã đọc nếu chính nó có is_read = true (đọc lẻ từng cái).
+ * "Đọc tất cả" chỉ cần dời mốc này - 1 dòng, không UPDATE hàng loạt receipt.
+ */
+@Entity
+@Table(name = "notification_read_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReadState {
+
+    @Id
+    @Column(name = "recipient_id")
+    private Long recipientId;
+
+    @Column(name = "read_up_to_id", nullable = false)
+    private Long readUpToId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public boolean covers(NotificationReceipt r) {
+        return r.getId() <= readUpToId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cotowork.taskservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng / người nhận - chỉ giữ tham chiếu tới message và trạng thái đọc.
+ * id của receipt chính là id thông báo mà client thấy (dùng cho PATCH /{id}/read).
+ * created_at copy từ message, là partition key của bảng.
+ */
+@Entity
+@Table(name = "notification_receipts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "is_read", nullable = false)
+    private boolean isRead = false;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
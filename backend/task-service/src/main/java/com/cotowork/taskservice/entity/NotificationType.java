@@ -0,0 +1,9 @@
+package com.cotowork.taskservice.entity;
+
+public enum NotificationType {
+    TASK_ASSIGNED,
+    TASK_UPDATED,
+    TASK_DUE_SOON,
+    TASK_OVERDUE,
+    GENERAL
+}
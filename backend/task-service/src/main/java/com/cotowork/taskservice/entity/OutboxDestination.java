@@ -0,0 +1,6 @@
+package com.cotowork.taskservice.entity;
+
+public enum OutboxDestination {
+    WEBSOCKET,
+    RABBITMQ
+}
@@ -0,0 +1,7 @@
+package com.cotowork.taskservice.entity;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.NotificationMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface NotificationMessageRepository extends JpaRepository<NotificationMessage, Long> {
+
+    /** Retention: xoá message không còn receipt nào trỏ tới (tối đa :limit dòng) */
+    @Modifying
+    @Query(value = """
+        DELETE FROM notification_messages
+        WHERE id IN (
+            SELECT m.id FROM notification_messages m
+            WHERE m.created_at < :cutoff
+              AND NOT EXISTS (SELECT 1 FROM notification_receipts r WHERE r.message_id = m.id)
+            LIMIT :limit
+        )
+    """, nativeQuery = true)
+    int deleteOrphanBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.NotificationReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationReadStateRepository extends JpaRepository<NotificationReadState, Long> {
+
+    /**
+     * Dời mốc đã đọc tới upToId - id receipt mới nhất mà client đã thấy (chỉ tiến, không lùi).
+     * Không dùng MAX(id) trần: id cấp từ sequence trước khi commit, MAX có thể vượt qua
+     * receipt id nhỏ hơn còn đang insert → receipt đó bị coi là đã đọc dù user chưa thấy.
+     * Mốc bị chặn ở MAX(id) hiện có của user; MAX dùng index (recipient_id, id DESC).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO notification_read_state (recipient_id, read_up_to_id, updated_at)
+        SELECT :recipientId, LEAST(:upToId, COALESCE(MAX(id), 0)), CURRENT_TIMESTAMP
+        FROM notification_receipts WHERE recipient_id = :recipientId
+        ON CONFLICT (recipient_id) DO UPDATE
+        SET read_up_to_id = GREATEST(notification_read_state.read_up_to_id, EXCLUDED.read_up_to_id),
+            updated_at    = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int advanceTo(@Param("recipientId") Long recipientId, @Param("upToId") Long upToId);
+}
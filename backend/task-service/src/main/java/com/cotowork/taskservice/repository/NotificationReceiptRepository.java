@@ -0,0 +1,86 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.NotificationReceipt;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationReceiptRepository
+        extends JpaRepository<NotificationReceipt, Long>, NotificationReceiptRepositoryCustom {
+
+    Page<NotificationReceipt> findByRecipientIdOrderByIdDesc(Long recipientId, Pageable pageable);
+
+    /** Replay cho SSE: các receipt sau Last-Event-ID, cũ → mới */
+    List<NotificationReceipt> findByRecipientIdAndIdGreaterThanOrderByIdAsc(Long recipientId, Long afterId,
+                                                                           Pageable pageable);
+
+    /** Id receipt mới nhất của user (0 nếu chưa có); dùng index (recipient_id, id DESC) */
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM notification_receipts WHERE recipient_id = :recipientId",
+           nativeQuery = true)
+    long findMaxIdByRecipientId(@Param("recipientId") Long recipientId);
+
+    /** Chưa đọc = mới hơn mốc read_up_to_id và chưa được đọc lẻ */
+    @Query(value = """
+        SELECT COUNT(*) FROM notification_receipts r
+        WHERE r.recipient_id = :recipientId
+          AND r.is_read = false
+          AND r.id > COALESCE((SELECT s.read_up_to_id FROM notification_read_state s
+                               WHERE s.recipient_id = :recipientId), 0)
+    """, nativeQuery = true)
+    long countUnread(@Param("recipientId") Long recipientId);
+
+    /** Receipt tồn tại, thuộc recipientId và còn chưa đọc (chưa đọc lẻ, mới hơn mốc) */
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM notification_receipts r
+            WHERE r.id = :id
+              AND r.recipient_id = :recipientId
+              AND r.is_read = false
+              AND r.id > COALESCE((SELECT s.read_up_to_id FROM notification_read_state s
+                                   WHERE s.recipient_id = :recipientId), 0)
+        )
+    """, nativeQuery = true)
+    boolean isUnreadFor(@Param("id") Long id, @Param("recipientId") Long recipientId);
+
+    // ── Retention purge: mỗi lệnh chỉ xoá tối đa :limit dòng để giữ lock ngắn ──
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM notification_receipts
+        WHERE (id, created_at) IN (
+            SELECT r.id, r.created_at
+            FROM notification_receipts r
+            JOIN notification_messages m ON m.id = r.message_id
+            LEFT JOIN notification_read_state s ON s.recipient_id = r.recipient_id
+            WHERE m.type = :type AND r.created_at < :cutoff
+              AND (r.is_read = true OR r.id <= COALESCE(s.read_up_to_id, 0))
+            LIMIT :limit
+        )
+    """, nativeQuery = true)
+    int deleteReadBatch(@Param("type") String type,
+                        @Param("cutoff") LocalDateTime cutoff,
+                        @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM notification_receipts
+        WHERE (id, created_at) IN (
+            SELECT r.id, r.created_at
+            FROM notification_receipts r
+            LEFT JOIN notification_read_state s ON s.recipient_id = r.recipient_id
+            WHERE r.created_at < :cutoff
+              AND r.is_read = false AND r.id > COALESCE(s.read_up_to_id, 0)
+            LIMIT :limit
+        )
+    """, nativeQuery = true)
+    int deleteUnreadBatch(@Param("cutoff") LocalDateTime cutoff,
+                          @Param("limit") int limit);
+}
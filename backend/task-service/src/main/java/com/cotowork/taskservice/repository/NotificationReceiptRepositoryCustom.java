@@ -0,0 +1,21 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.NotificationReceipt;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationReceiptRepositoryCustom {
+
+    /**
+     * Tạo receipt cho nhiều người nhận bằng 1 câu INSERT ... SELECT unnest(array).
+     * Trả về receipt đã có id (thứ tự không đảm bảo giống recipientIds).
+     */
+    List<NotificationReceipt> insertReceipts(Long messageId, LocalDateTime createdAt, List<Long> recipientIds);
+
+    /**
+     * Đánh dấu đã đọc nhiều receipt của nhiều user bằng 1 câu UPDATE ... FROM unnest().
+     * ids và recipientIds đi theo cặp cùng vị trí.
+     */
+    int markReadBatch(List<Long> ids, List<Long> recipientIds);
+}
@@ -0,0 +1,68 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.NotificationReceipt;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ghi receipt bằng JDBC thay vì saveAll(): với IDENTITY, Hibernate phải INSERT từng dòng
+ * để lấy id, còn unnest() chỉ tốn 1 round-trip cho mỗi chunk.
+ */
+@RequiredArgsConstructor
+public class NotificationReceiptRepositoryImpl implements NotificationReceiptRepositoryCustom {
+
+    private static final int CHUNK_SIZE = 5000;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO notification_receipts (message_id, recipient_id, is_read, created_at)
+            SELECT ?, r, false, ? FROM unnest(?::bigint[]) AS r
+            RETURNING id, recipient_id
+            """;
+
+    private static final String MARK_READ_SQL = """
+            UPDATE notification_receipts r
+            SET is_read = true, read_at = CURRENT_TIMESTAMP
+            FROM unnest(?::bigint[], ?::bigint[]) AS m(id, recipient_id)
+            WHERE r.id = m.id AND r.recipient_id = m.recipient_id AND r.is_read = false
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<NotificationReceipt> insertReceipts(Long messageId, LocalDateTime createdAt, List<Long> recipientIds) {
+        List<NotificationReceipt> result = new ArrayList<>(recipientIds.size());
+        for (int from = 0; from < recipientIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = recipientIds.subList(from, Math.min(from + CHUNK_SIZE, recipientIds.size()));
+            result.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_SQL);
+                ps.setLong(1, messageId);
+                ps.setTimestamp(2, Timestamp.valueOf(createdAt));
+                ps.setArray(3, con.createArrayOf("bigint", chunk.toArray()));
+                return ps;
+            }, (rs, i) -> NotificationReceipt.builder()
+                    .id(rs.getLong("id"))
+                    .messageId(messageId)
+                    .recipientId(rs.getLong("recipient_id"))
+                    .isRead(false)
+                    .createdAt(createdAt)
+                    .build()));
+        }
+        return result;
+    }
+
+    @Override
+    public int markReadBatch(List<Long> ids, List<Long> recipientIds) {
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(MARK_READ_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            ps.setArray(2, con.createArrayOf("bigint", recipientIds.toArray()));
+            return ps;
+        });
+    }
+}
@@ -1,34 +0,0 @@
-package com.cotowork.taskservice.repository;
-
-import com.cotowork.taskservice.entity.Notification;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
-
-@Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
-
-    Page<Notification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
-
-    long countByRecipientIdAndIsReadFalse(Long recipientId);
-
-    @Modifying
-    @Query("""
-        UPDATE Notification n
-        SET n.isRead = true, n.readAt = CURRENT_TIMESTAMP
-        WHERE n.id = :id AND n.recipientId = :recipientId
-    """)
-    int markAsRead(@Param("id") Long id, @Param("recipientId") Long recipientId);
-
-    @Modifying
-    @Query("""
-        UPDATE Notification n
-        SET n.isRead = true, n.readAt = CURRENT_TIMESTAMP
-        WHERE n.recipientId = :recipientId AND n.isRead = false
-    """)
-    int markAllAsRead(@Param("recipientId") Long recipientId);
-}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.cotowork.taskservice.repository;
+
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.cotowork.taskservice.entity.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Lấy 1 batch sự kiện đến hạn và khoá lại. SKIP LOCKED: các worker relay khác
+     * bỏ qua dòng đang bị khoá thay vì chờ → nhiều worker chạy song song không đụng nhau.
+     */
+    @Query(value = """
+        SELECT * FROM outbox_events
+        WHERE status = 'PENDING' AND next_attempt_at <= CURRENT_TIMESTAMP
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("limit") int limit);
+
+    long countByStatus(OutboxStatus status);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM outbox_events
+        WHERE id IN (
+            SELECT id FROM outbox_events
+            WHERE status = 'SENT' AND sent_at < :cutoff
+            LIMIT :limit
+        )
+    """, nativeQuery = true)
+    int deleteSentBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
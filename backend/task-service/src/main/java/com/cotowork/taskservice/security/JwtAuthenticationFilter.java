@@ -17,6 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * JWT Authentication Filter
@@ -28,7 +29,10 @@ import java.util.List;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_PATH = "/api/notifications/stream";
+
     private final JwtUtil jwtUtil;
+    private final StreamTicketService streamTickets;
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -52,63 +56,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Extract token
         String authorizationHeader = request.getHeader("Authorization");
         String token = null;
-        String username = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             token = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(token);
-            } catch (Exception e) {
-                log.warn("Error extracting username from JWT: {}", e.getMessage());
-            }
+        } else if (STREAM_PATH.equals(requestPath)) {
+            // EventSource (SSE) không set được header → vé dùng 1 lần qua query param,
+            // không nhận access token trên URL (sẽ lộ trong access log của proxy)
+            token = streamTickets.redeem(request.getParameter("ticket")).orElse(null);
         }
 
-        // Validate token and set security context
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token)) {
-                try {
-                    Long userId = jwtUtil.extractUserId(token);
-                    String role = jwtUtil.extractRole(token);
-                    Long unitId = jwtUtil.extractUnitId(token);
-                    List<String> permissions = jwtUtil.extractPermissions(token);
-
-                    if (permissions == null) {
-                        permissions = new ArrayList<>();
-                    }
-
-                    // Tạo authorities (giống user-service)
-                    List<SimpleGrantedAuthority> authorities = new ArrayList<>();
-                    for (String permission : permissions) {
-                        authorities.add(new SimpleGrantedAuthority(permission));
-                    }
-                    if (role != null && !role.isEmpty()) {
-                        authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
-                    }
-
-                    // Set Authentication (giống user-service: principal = username string)
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(username, null, authorities);
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    // Lưu user details vào request attribute (giống user-service)
-                    JwtUserPrincipal userDetails = JwtUserPrincipal.builder()
-                            .userId(userId)
-                            .username(username)
-                            .role(role)
-                            .unitId(unitId)
-                            .permissions(permissions)
-                            .build();
-                    request.setAttribute("userDetails", userDetails);
-
-                    log.debug("JWT authenticated: user={}, role={}, permissions={}",
-                            username, role, permissions.size());
-
-                } catch (Exception e) {
-                    log.error("Error setting security context for user {}: ", username, e);
+        // Validate token and set security context - parse + verify đúng 1 lần (hoặc lấy từ cache)
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<VerifiedToken> verified = jwtUtil.verify(token);
+            if (verified.isPresent()) {
+                VerifiedToken claims = verified.get();
+
+                // Tạo authorities (giống user-service)
+                List<SimpleGrantedAuthority> authorities = new ArrayList<>(claims.permissions().size() + 1);
+                for (String permission : claims.permissions()) {
+                    authorities.add(new SimpleGrantedAuthority(permission));
+                }
+                if (claims.role() != null && !claims.role().isEmpty()) {
+                    authorities.add(new SimpleGrantedAuthority("ROLE_" + claims.role()));
                 }
-            } else {
-                log.warn("Invalid JWT token for user: {}", username);
+
+                // Set Authentication (giống user-service: principal = username string)
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(claims.username(), null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                // Lưu user details vào request attribute (giống user-service)
+                request.setAttribute("userDetails", claims.toPrincipal());
+
+                log.debug("JWT authenticated: user={}, role={}, permissions={}",
+                        claims.username(), claims.role(), claims.permissions().size());
             }
         }
 
@@ -2,13 +2,17 @@ package com.cotowork.taskservice.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 /**
  * JWT Utility - Chỉ VALIDATE token (không tạo token)
@@ -17,76 +21,115 @@ import java.util.List;
  * QUAN TRỌNG: Phải dùng CÙNG cách tạo SecretKey với user-service
  * user-service dùng: Keys.hmacShaKeyFor(jwtSecret.getBytes())
  * → task-service PHẢI dùng y hệt
+ *
+ * Mỗi token chỉ parse + verify 1 lần thành VerifiedToken. Kết quả được cache (LRU,
+ * key = SHA-256 của token) tới khi token hết hạn, nên các request tiếp theo cùng token
+ * không phải verify HMAC / parse JSON lại.
  */
 @Component
 @Slf4j
 public class JwtUtil {
 
-    private final SecretKey secretKey;
+    private final JwtParser parser;
+    private final TokenRevocationChecker revocationChecker;
+    private final Map<String, VerifiedToken> cache;
+    private final Counter hits;
+    private final Counter misses;
 
     public JwtUtil(
             // ★ PHẢI CÙNG property name + default value với user-service
-            @Value("${app.jwt.secret:mySecretKey123456789012345678901234567890}") String jwtSecret
+            @Value("${app.jwt.secret:mySecretKey123456789012345678901234567890}") String jwtSecret,
+            @Value("${app.jwt.verified-cache.max-size:10000}") int cacheMaxSize,
+            MeterRegistry meterRegistry,
+            TokenRevocationChecker revocationChecker
     ) {
         // ★ PHẢI dùng .getBytes() giống user-service (KHÔNG dùng Base64 decode)
-        this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        SecretKey secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        // Parser bất biến, thread-safe → build 1 lần
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.revocationChecker = revocationChecker;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > cacheMaxSize;
+            }
+        });
+        this.hits = meterRegistry.counter("jwt.verify.cache", "result", "hit");
+        this.misses = meterRegistry.counter("jwt.verify.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("jwt.verify.cache.size", List.of(), cache);
         log.info("JwtUtil initialized with secret key (first 10 chars): {}...",
                 jwtSecret.substring(0, Math.min(10, jwtSecret.length())));
     }
 
     /**
-     * Validate token - giống user-service validateAccessToken()
+     * Verify token - giống user-service validateAccessToken(): chữ ký, hạn, type = access.
+     * Trả về empty nếu token không hợp lệ.
      */
-    public boolean validateToken(String token) {
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+
+        String key = hash(token);
+        VerifiedToken cached = cache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                hits.increment();
+                return notRevoked(cached);
+            }
+            cache.remove(key);
+        }
+        misses.increment();
+
         try {
-            Claims claims = extractClaims(token);
-            // Check expiration
-            if (claims.getExpiration().before(new Date())) {
-                log.warn("JWT token expired");
-                return false;
+            Claims claims = parser.parseSignedClaims(token).getPayload();   // hết hạn → ExpiredJwtException
+            if (claims.getExpiration() == null) {
+                log.warn("JWT token has no expiration");
+                return Optional.empty();
             }
-            // Check token type = access (giống user-service)
             String tokenType = claims.get("type", String.class);
             if (!"access".equals(tokenType)) {
                 log.warn("JWT token is not access type: {}", tokenType);
-                return false;
+                return Optional.empty();
             }
-            return true;
+            VerifiedToken verified = toVerifiedToken(claims);
+            cache.put(key, verified);
+            return notRevoked(verified);
+        } catch (ExpiredJwtException e) {
+            log.warn("JWT token expired");
+            return Optional.empty();
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("JWT validation failed: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
-    public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    public Long extractUserId(String token) {
-        return extractClaims(token).get("userId", Long.class);
-    }
-
-    public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
-    }
-
-    public Long extractUnitId(String token) {
-        return extractClaims(token).get("unitId", Long.class);
+    /** Thu hồi kiểm tra ở mọi lần gọi (kể cả khi lấy từ cache) - xem TokenRevocationChecker */
+    private Optional<VerifiedToken> notRevoked(VerifiedToken token) {
+        if (revocationChecker.isRevoked(token)) {
+            log.warn("JWT token revoked (userId={})", token.userId());
+            return Optional.empty();
+        }
+        return Optional.of(token);
     }
 
     @SuppressWarnings("unchecked")
-    public List<String> extractPermissions(String token) {
-        return extractClaims(token).get("permissions", List.class);
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.get("unitId", Long.class),
+                claims.get("permissions", List.class),
+                claims.getId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
     }
 
-    /**
-     * Parse token - CÙNG cách với user-service
-     */
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // SHA-256 luôn có trên mọi JVM
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.cotowork.taskservice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Vé ngắn hạn cho luồng SSE (GET /api/notifications/stream?ticket=...).
+ *
+ * EventSource của trình duyệt không set được header Authorization; đưa access token lên
+ * query string thì token nằm lại trong access log của nginx/proxy. Thay vào đó client gọi
+ * POST /api/notifications/stream-ticket (có header Bearer) lấy 1 vé ngẫu nhiên: lưu trên Redis
+ * (dùng chung mọi node), sống ttl-seconds và chỉ dùng được 1 lần (GETDEL).
+ * Vé lộ trong log chỉ còn là chuỗi đã dùng/hết hạn.
+ */
+@Component
+public class StreamTicketService {
+
+    private static final String KEY_PREFIX = "sse-ticket:";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public StreamTicketService(StringRedisTemplate redisTemplate,
+                               @Value("${notification.stream.ticket-ttl-seconds:30}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /** Cấp vé gắn với access token của request hiện tại */
+    public String issue(String accessToken) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        redisTemplate.opsForValue().set(KEY_PREFIX + ticket, accessToken, ttl);
+        return ticket;
+    }
+
+    /** Đổi vé lấy access token; vé bị xoá ngay nên lần dùng thứ 2 trả về empty */
+    public Optional<String> redeem(String ticket) {
+        if (ticket == null || ticket.isBlank()) return Optional.empty();
+        return Optional.ofNullable(redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + ticket));
+    }
+
+    public long ttlSeconds() {
+        return ttl.toSeconds();
+    }
+}
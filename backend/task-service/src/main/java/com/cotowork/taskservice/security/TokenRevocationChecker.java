@@ -0,0 +1,140 @@
+package com.cotowork.taskservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Kiểm tra token đã bị thu hồi (logout / khoá tài khoản) - bản sao phía task-service
+ * của TokenRevocationService bên user-service.
+ *
+ * - user-service ghi mỗi lần thu hồi lên Redis: key "revoked:jti:{jti}" hoặc
+ *   "revoked:user:{userId}" (value = thời điểm thu hồi, epoch giây), TTL = thời hạn token,
+ *   và publish khoá lên kênh "token-revocations".
+ * - Ở đây giữ 1 Bloom filter các khoá: đa số request chỉ tốn 1 lần tra trong RAM;
+ *   chỉ khi Bloom báo "có thể có" mới GET trên Redis để xác nhận.
+ * - Filter được dựng lại định kỳ bằng SCAN revoked:* → khoá hết TTL tự rơi ra.
+ */
+@Component
+@Slf4j
+public class TokenRevocationChecker implements MessageListener {
+
+    public static final String CHANNEL = "token-revocations";
+    private static final String KEY_PREFIX = "revoked:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile TokenBloomFilter bloom;
+    // Khoá nhận được trong lúc đang dựng lại filter, áp lại sau khi đổi filter
+    private final Queue<String> addedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private final Counter negatives;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+
+    public TokenRevocationChecker(StringRedisTemplate redisTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.token-revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${app.token-revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloom = new TokenBloomFilter(expectedEntries, falsePositiveRate);
+        this.negatives = meterRegistry.counter("token.revocation.check", "result", "bloom_negative");
+        this.confirmed = meterRegistry.counter("token.revocation.check", "result", "revoked");
+        this.falsePositives = meterRegistry.counter("token.revocation.check", "result", "false_positive");
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        TokenBloomFilter filter = bloom;
+        String tokenKey = token.tokenId() != null ? "jti:" + token.tokenId() : null;
+        String userKey = token.userId() != null ? "user:" + token.userId() : null;
+        boolean tokenHit = tokenKey != null && filter.mightContain(tokenKey);
+        boolean userHit = userKey != null && filter.mightContain(userKey);
+        if (!tokenHit && !userHit) {
+            negatives.increment();
+            return false;
+        }
+
+        try {
+            boolean revoked = (tokenHit && redisTemplate.opsForValue().get(KEY_PREFIX + tokenKey) != null)
+                    || (userHit && issuedBefore(token, redisTemplate.opsForValue().get(KEY_PREFIX + userKey)));
+            (revoked ? confirmed : falsePositives).increment();
+            return revoked;
+        } catch (Exception e) {
+            // Không xác nhận được mà Bloom đã báo trùng → từ chối cho an toàn
+            log.warn("[Revocation] Redis lookup failed, rejecting token of userId={}: {}", token.userId(), e.getMessage());
+            return true;
+        }
+    }
+
+    /** Thu hồi mới do user-service publish */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        bloom.put(key);
+        addedDuringRebuild.add(key);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.token-revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        addedDuringRebuild.clear();
+        List<String> keys;
+        try {
+            keys = scanKeys();
+        } catch (Exception e) {
+            log.warn("[Revocation] Không đọc được danh sách thu hồi từ Redis, giữ filter cũ: {}", e.getMessage());
+            return;
+        }
+        TokenBloomFilter next = new TokenBloomFilter(Math.max(expectedEntries, keys.size() * 2), falsePositiveRate);
+        keys.forEach(next::put);
+        bloom = next;
+        addedDuringRebuild.forEach(next::put);
+        log.debug("[Revocation] Filter rebuilt with {} keys", keys.size());
+    }
+
+    private List<String> scanKeys() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        return redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            List<String> keys = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    keys.add(new String(cursor.next(), StandardCharsets.UTF_8).substring(KEY_PREFIX.length()));
+                }
+            }
+            return keys;
+        });
+    }
+
+    /** iat của JWT tính bằng giây → so sánh theo giây */
+    private static boolean issuedBefore(VerifiedToken token, String revokedAtEpoch) {
+        if (revokedAtEpoch == null) return false;
+        if (token.issuedAt() == null) return true;
+        return token.issuedAt().getEpochSecond() < Long.parseLong(revokedAtEpoch);
+    }
+}
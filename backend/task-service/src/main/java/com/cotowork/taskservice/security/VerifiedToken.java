@@ -0,0 +1,37 @@
+package com.cotowork.taskservice.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims của 1 access token đã verify chữ ký + hạn + type - bất biến, an toàn để cache.
+ */
+public record VerifiedToken(
+        String username,
+        Long userId,
+        String role,
+        Long unitId,
+        List<String> permissions,
+        String tokenId,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public VerifiedToken {
+        permissions = permissions != null ? List.copyOf(permissions) : List.of();
+    }
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+
+    public JwtUserPrincipal toPrincipal() {
+        return JwtUserPrincipal.builder()
+                .userId(userId)
+                .username(username)
+                .role(role)
+                .unitId(unitId)
+                .permissions(permissions)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.cotowork.taskservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gộp nhiều notification gửi cho cùng 1 user trong khoảng ngắn thành 1 frame mảng JSON.
+ *
+ * Chỉ áp dụng cho session CONNECT với header "x-notification-batch: 1" - các session này
+ * subscribe /user/queue/notifications-batch và nhận [ {...}, {...} ].
+ * Frame được gửi khi hết window-ms kể từ item đầu tiên hoặc khi đủ max-items.
+ * Mỗi buffer mang 1 generation: lịch flush của buffer cũ (đã gửi vì đủ max-items) không được
+ * gửi sớm buffer mới hơn của cùng user.
+ */
+@Component
+@Slf4j
+public class NotificationCoalescer {
+
+    public static final String BATCH_DESTINATION = "/queue/notifications-batch";
+
+    private final StompJsonSender sender;
+    private final TaskScheduler taskScheduler;
+    private final long windowMs;
+    private final int maxItems;
+    private final Counter framesSent;
+    private final Counter itemsSent;
+
+    private record Buffer(long generation, List<byte[]> items) {}
+
+    private final ConcurrentHashMap<Long, Buffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+
+    public NotificationCoalescer(StompJsonSender sender,
+                                 TaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.websocket.coalesce.window-ms:50}") long windowMs,
+                                 @Value("${app.websocket.coalesce.max-items:20}") int maxItems) {
+        this.sender = sender;
+        this.taskScheduler = taskScheduler;
+        this.windowMs = windowMs;
+        this.maxItems = maxItems;
+        this.framesSent = meterRegistry.counter("websocket.coalesce.frames");
+        this.itemsSent = meterRegistry.counter("websocket.coalesce.items");
+    }
+
+    public void enqueue(Long userId, byte[] json) {
+        boolean[] first = new boolean[1];
+        boolean[] full = new boolean[1];
+        Buffer buffer = buffers.compute(userId, (k, b) -> {
+            Buffer cur = b != null ? b : new Buffer(generations.incrementAndGet(), new ArrayList<>());
+            first[0] = cur.items().isEmpty();
+            cur.items().add(json);
+            full[0] = cur.items().size() >= maxItems;
+            return cur;
+        });
+
+        long generation = buffer.generation();
+        if (full[0]) {
+            flush(userId, generation);
+        } else if (first[0]) {
+            taskScheduler.schedule(() -> flush(userId, generation), Instant.now().plusMillis(windowMs));
+        }
+    }
+
+    private void flush(Long userId, long generation) {
+        // Lấy buffer ra là điểm cắt: item đến sau sẽ mở buffer (generation mới) + lịch flush mới.
+        // Generation khác → buffer này đã được gửi, lịch cũ bỏ qua buffer mới.
+        Buffer[] taken = new Buffer[1];
+        buffers.computeIfPresent(userId, (k, b) -> {
+            if (b.generation() != generation) return b;
+            taken[0] = b;
+            return null;
+        });
+        if (taken[0] == null || taken[0].items().isEmpty()) return;
+        List<byte[]> items = taken[0].items();
+        try {
+            sender.sendToUser(userId, BATCH_DESTINATION, toJsonArray(items));
+            framesSent.increment();
+            itemsSent.increment(items.size());
+        } catch (Exception e) {
+            log.error("[WS] Batch push failed userId={} ({} items): {}", userId, items.size(), e.getMessage());
+        }
+    }
+
+    private static byte[] toJsonArray(List<byte[]> items) {
+        int size = 2 + items.size() - 1;
+        for (byte[] item : items) size += item.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.write('[');
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(items.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,186 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.config.OutboxProperties;
+import com.cotowork.taskservice.dto.NotificationEvent;
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gửi 1 sự kiện outbox tới đích của nó. Ném exception nếu gửi lỗi → OutboxRelay retry.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final StompJsonSender sender;
+    private final NotificationCoalescer coalescer;
+    private final RabbitTemplate rabbitTemplate;
+    private final NotificationMessageCache messageCache;
+    private final NotificationReadBuffer readBuffer;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final PresenceRegistry presence;
+    private final NotificationStreamRegistry streams;
+    private final Counter skippedOffline;
+
+    public NotificationDispatcher(StompJsonSender sender,
+                                  NotificationCoalescer coalescer,
+                                  RabbitTemplate rabbitTemplate,
+                                  NotificationMessageCache messageCache,
+                                  NotificationReadBuffer readBuffer,
+                                  OutboxProperties properties,
+                                  ObjectMapper objectMapper,
+                                  PresenceRegistry presence,
+                                  NotificationStreamRegistry streams,
+                                  MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.coalescer = coalescer;
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageCache = messageCache;
+        this.readBuffer = readBuffer;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.presence = presence;
+        this.streams = streams;
+        this.skippedOffline = meterRegistry.counter("websocket.push.skipped_offline");
+    }
+
+    public void dispatch(OutboxEvent event) throws Exception {
+        switch (event.getDestination()) {
+            case WEBSOCKET -> dispatchWebSocket(event);
+            case RABBITMQ -> dispatchRabbit(event);
+        }
+    }
+
+    // ============================================================
+    // RabbitMQ: payload JSON giữ nguyên, routing key = event_type
+    // ============================================================
+
+    private void dispatchRabbit(OutboxEvent event) {
+        rabbitTemplate.send(properties.getExchange(), event.getEventType(),
+                MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                        .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                        .setMessageId(String.valueOf(event.getId()))
+                        .setHeader("aggregateType", event.getAggregateType())
+                        .setHeader("aggregateId", event.getAggregateId())
+                        .build());
+    }
+
+    // ============================================================
+    // WebSocket: /user/{recipientId}/queue/notifications
+    // ============================================================
+
+    private void dispatchWebSocket(OutboxEvent event) throws Exception {
+        if (!OutboxService.AGGREGATE_NOTIFICATION.equals(event.getAggregateType())) {
+            log.warn("[Outbox] Không có handler WS cho aggregate {}", event.getAggregateType());
+            return;
+        }
+        NotificationEvent ne = objectMapper.readValue(event.getPayload(), NotificationEvent.class);
+        NotificationMessage n = messageCache.getAll(List.of(ne.getMessageId())).get(ne.getMessageId());
+        if (n == null) {
+            log.warn("[Outbox] Message {} đã bị xoá, bỏ qua", ne.getMessageId());
+            return;
+        }
+
+        // Thông báo toàn phòng ban: 1 lần publish cho cả unit. Client tự fetch lại để có
+        // id receipt + unreadCount của mình; counter cache chỉ bị đánh dấu cũ (không query DB).
+        // Luồng SSE không nghe unit topic nên vẫn nhận bản riêng.
+        if (n.getUnitId() != null) {
+            byte[] shared = null;
+            for (int i = 0; i < ne.getRecipientIds().size(); i++) {
+                Long recipientId = ne.getRecipientIds().get(i);
+                if (!streams.hasStream(recipientId)) {
+                    readBuffer.invalidate(recipientId);
+                    continue;
+                }
+                if (shared == null) shared = serializeShared(n);
+                Long receiptId = ne.getReceiptIds().get(i);
+                streams.send(recipientId, receiptId, splice(receiptId, readBuffer.onDelivered(recipientId), shared));
+            }
+            sendToUnit(n);
+            return;
+        }
+
+        // Phần chung serialize 1 lần (và chỉ khi có ít nhất 1 người online);
+        // mỗi người nhận chỉ ghép thêm id + unreadCount
+        byte[] shared = null;
+        int pushed = 0;
+        for (int i = 0; i < ne.getRecipientIds().size(); i++) {
+            Long recipientId = ne.getRecipientIds().get(i);
+            boolean streaming = streams.hasStream(recipientId);
+            if (!streaming && !presence.isOnline(recipientId)) {
+                // Offline: không serialize, không đếm unread - lần mở app sẽ fetch lại
+                readBuffer.invalidate(recipientId);
+                continue;
+            }
+            if (shared == null) shared = serializeShared(n);
+            Long receiptId = ne.getReceiptIds().get(i);
+            long unreadCount = readBuffer.onDelivered(recipientId);
+            byte[] body = splice(receiptId, unreadCount, shared);
+            if (streaming) streams.send(recipientId, receiptId, body);
+            // Client mới nhận frame gộp, client cũ nhận từng message như trước
+            if (presence.hasBatchSession(recipientId)) coalescer.enqueue(recipientId, body);
+            if (presence.hasLegacySession(recipientId)) sender.sendToUser(recipientId, "/queue/notifications", body);
+            pushed++;
+        }
+        skippedOffline.increment(ne.getRecipientIds().size() - pushed);
+        log.debug("[WS] Pushed message {} to {}/{} users (others offline)",
+                n.getId(), pushed, ne.getRecipientIds().size());
+    }
+
+    // ============================================================
+    // PAYLOAD: serialize-once
+    // ============================================================
+
+    /** JSON các field giống nhau cho mọi người nhận, vd: {"title":"..","message":"..",...} */
+    private byte[] serializeShared(NotificationMessage n) throws Exception {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("title",       n.getTitle());
+        payload.put("message",     n.getMessage() != null ? n.getMessage() : "");
+        payload.put("type",        n.getType().name());
+        payload.put("senderName",  n.getSenderName());
+        payload.put("taskId",      n.getTaskId());
+        payload.put("taskTitle",   n.getTaskTitle() != null ? n.getTaskTitle() : "");
+        payload.put("createdAt",   n.getCreatedAt().toString());
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    private void sendToUnit(NotificationMessage n) throws Exception {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("messageId",   n.getId());
+        payload.put("unitId",      n.getUnitId());
+        payload.put("senderId",    n.getSenderId());
+        payload.put("title",       n.getTitle());
+        payload.put("message",     n.getMessage() != null ? n.getMessage() : "");
+        payload.put("type",        n.getType().name());
+        payload.put("senderName",  n.getSenderName());
+        payload.put("taskId",      n.getTaskId());
+        payload.put("taskTitle",   n.getTaskTitle() != null ? n.getTaskTitle() : "");
+        payload.put("createdAt",   n.getCreatedAt().toString());
+        sender.send("/topic/unit/" + n.getUnitId() + "/notifications", objectMapper.writeValueAsBytes(payload));
+        log.debug("[WS] Pushed message {} to unit topic {}", n.getId(), n.getUnitId());
+    }
+
+    /** {"id":<id>,"unreadCount":<n>, + phần chung bỏ dấu '{' đầu */
+    private static byte[] splice(Long id, long unreadCount, byte[] shared) {
+        byte[] head = ("{\"id\":" + id + ",\"unreadCount\":" + unreadCount + ",")
+                .getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[head.length + shared.length - 1];
+        System.arraycopy(head, 0, out, 0, head.length);
+        System.arraycopy(shared, 1, out, head.length, shared.length - 1);
+        return out;
+    }
+}
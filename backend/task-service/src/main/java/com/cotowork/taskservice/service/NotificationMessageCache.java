@@ -0,0 +1,68 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.repository.NotificationMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Cache LRU cho nội dung message gần đây.
+ *
+ * Message là bất biến sau khi tạo nên không cần invalidate; feed của mọi người nhận
+ * cùng một thông báo broadcast chỉ đọc body từ DB một lần.
+ */
+@Component
+public class NotificationMessageCache {
+
+    private final NotificationMessageRepository messageRepository;
+    private final Map<Long, NotificationMessage> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public NotificationMessageCache(NotificationMessageRepository messageRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notification.message-cache.max-size:10000}") int maxSize) {
+        this.messageRepository = messageRepository;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, NotificationMessage> eldest) {
+                return size() > maxSize;
+            }
+        });
+        this.hits = meterRegistry.counter("notifications.message.cache", "result", "hit");
+        this.misses = meterRegistry.counter("notifications.message.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("notifications.message.cache.size", List.of(), cache);
+    }
+
+    public void put(NotificationMessage message) {
+        cache.put(message.getId(), message);
+    }
+
+    /** Lấy nhiều message theo id; id nào chưa có trong cache được nạp bằng 1 query */
+    public Map<Long, NotificationMessage> getAll(Collection<Long> ids) {
+        Map<Long, NotificationMessage> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            NotificationMessage m = cache.get(id);
+            if (m != null) {
+                result.put(id, m);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.increment(result.size());
+        misses.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            for (NotificationMessage m : messageRepository.findAllById(missing)) {
+                cache.put(m.getId(), m);
+                result.put(m.getId(), m);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.config.NotificationRetentionProperties;
+import com.cotowork.taskservice.entity.NotificationType;
+import com.cotowork.taskservice.repository.NotificationMessageRepository;
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dọn dẹp notification theo chính sách retention.
+ *
+ * - notification_receipts được partition theo tháng trên created_at (xem db/init-task-db.sql).
+ * - Receipt hết hạn lẻ tẻ: DELETE theo batch nhỏ, mỗi batch một transaction riêng.
+ * - Partition mà toàn bộ dữ liệu đã quá hạn: DETACH + DROP (không phải quét từng dòng).
+ * - Message không còn receipt nào trỏ tới thì xoá sau cùng.
+ */
+@Service
+@Slf4j
+public class NotificationPurgeService {
+
+    private static final String PARENT_TABLE = "notification_receipts";
+    private static final String MESSAGE_TABLE = "notification_messages";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^notification_receipts_p(\\d{4})_(\\d{2})$");
+
+    private final NotificationReceiptRepository receiptRepository;
+    private final NotificationMessageRepository messageRepository;
+    private final NotificationRetentionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong tableBytes = new AtomicLong();
+    private final AtomicLong tableRows = new AtomicLong();
+
+    public NotificationPurgeService(NotificationReceiptRepository receiptRepository,
+                                    NotificationMessageRepository messageRepository,
+                                    NotificationRetentionProperties properties,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.receiptRepository = receiptRepository;
+        this.messageRepository = messageRepository;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("notifications.table.size", tableBytes, AtomicLong::get)
+                .description("Tổng dung lượng notification_receipts (mọi partition) + notification_messages")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("notifications.table.rows", tableRows, AtomicLong::get)
+                .description("Ước lượng số dòng notification_receipts (pg_class.reltuples)")
+                .register(meterRegistry);
+    }
+
+    // ============================================================
+    // JOB: chạy mặc định 3h sáng mỗi ngày
+    // ============================================================
+
+    @Scheduled(cron = "${notification.retention.cron:0 0 3 * * *}")
+    public void runScheduledPurge() {
+        if (!properties.isEnabled()) return;
+        purge();
+    }
+
+    /** Số liệu kích thước bảng cho Prometheus - không query DB mỗi lần scrape */
+    @Scheduled(fixedDelayString = "${notification.retention.stats-interval-ms:300000}", initialDelay = 30_000)
+    public void refreshTableStats() {
+        try {
+            Long bytes = jdbcTemplate.queryForObject("""
+                    SELECT COALESCE(SUM(pg_total_relation_size(relid)), 0)
+                           + pg_total_relation_size(?::regclass)
+                    FROM pg_partition_tree(?::regclass)
+                    """, Long.class, MESSAGE_TABLE, PARENT_TABLE);
+            Long rows = jdbcTemplate.queryForObject("""
+                    SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint
+                    FROM pg_partition_tree(?::regclass) t
+                    JOIN pg_class c ON c.oid = t.relid
+                    WHERE t.isleaf
+                    """, Long.class, PARENT_TABLE);
+            tableBytes.set(bytes != null ? bytes : 0);
+            tableRows.set(rows != null ? rows : 0);
+        } catch (Exception e) {
+            log.warn("[Retention] Không đọc được kích thước bảng: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chạy một lượt dọn dẹp. Trả về tổng số receipt đã xoá bằng DELETE
+     * (partition bị DROP không tính vào đây, xem notifications.partitions.dropped).
+     */
+    public long purge() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("[Retention] Lượt purge trước chưa xong, bỏ qua");
+            return 0;
+        }
+        try {
+            ensurePartitions();
+            dropExpiredPartitions();
+
+            long total = 0;
+            int budget = properties.getMaxBatchesPerRun();
+            LocalDateTime now = LocalDateTime.now();
+
+            for (NotificationType type : NotificationType.values()) {
+                LocalDateTime cutoff = now.minusDays(properties.readDaysFor(type));
+                BatchResult r = deleteInBatches(budget, () ->
+                        receiptRepository.deleteReadBatch(type.name(), cutoff, properties.getBatchSize()));
+                budget -= r.batches();
+                total += r.rows();
+                purgedCounter(type.name(), "read").increment(r.rows());
+                if (budget <= 0) break;
+            }
+
+            if (budget > 0) {
+                LocalDateTime cutoff = now.minusDays(properties.getUnreadDays());
+                BatchResult r = deleteInBatches(budget, () ->
+                        receiptRepository.deleteUnreadBatch(cutoff, properties.getBatchSize()));
+                budget -= r.batches();
+                total += r.rows();
+                purgedCounter("ALL", "unread").increment(r.rows());
+            }
+
+            // Message mồ côi: receipt đã bị xoá/drop hết. Chỉ xét message cũ hơn 1 ngày
+            // để không đụng message vừa tạo mà receipt chưa kịp insert.
+            if (budget > 0) {
+                LocalDateTime cutoff = now.minusDays(1);
+                BatchResult r = deleteInBatches(budget, () ->
+                        messageRepository.deleteOrphanBatch(cutoff, properties.getBatchSize()));
+                purgedCounter("ALL", "orphan_message").increment(r.rows());
+            }
+
+            log.info("[Retention] Đã xoá {} notification receipts", total);
+            refreshTableStats();
+            return total;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    private record BatchResult(long rows, int batches) {}
+
+    /** Lặp DELETE ... LIMIT cho đến khi hết dòng hoặc hết budget; mỗi batch commit riêng */
+    private BatchResult deleteInBatches(int budget, IntSupplier batch) {
+        long rows = 0;
+        int batches = 0;
+        while (batches < budget) {
+            Integer deleted = txTemplate.execute(status -> batch.getAsInt());
+            batches++;
+            if (deleted == null || deleted == 0) break;
+            rows += deleted;
+            if (deleted < properties.getBatchSize()) break;
+            pause();
+        }
+        return new BatchResult(rows, batches);
+    }
+
+    private void ensurePartitions() {
+        try {
+            jdbcTemplate.queryForList("SELECT ensure_monthly_partitions(?, ?)",
+                    PARENT_TABLE, properties.getPartitionsAhead());
+        } catch (Exception e) {
+            log.warn("[Retention] Không tạo được partition (bảng chưa partition?): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * DROP partition tháng nếu toàn bộ khoảng thời gian của nó đã quá retention dài nhất.
+     * lock_timeout ngắn: nếu bảng đang bận thì bỏ qua, lần chạy sau thử lại.
+     */
+    private void dropExpiredPartitions() {
+        LocalDate oldestKept = LocalDate.now().minusDays(properties.maxRetentionDays());
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = ?::regclass
+                """, String.class, PARENT_TABLE);
+
+        for (String name : partitions) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) continue;   // bỏ qua notification_receipts_default
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (!month.plusMonths(1).atDay(1).isAfter(oldestKept)) {
+                dropPartition(name);
+            }
+        }
+    }
+
+    private void dropPartition(String name) {
+        try {
+            // Tên bảng/timeout đi qua bind param; drop_monthly_partition() tự quote bằng format('%I')
+            txTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("SELECT set_config('lock_timeout', ?, true)", properties.getDropLockTimeout());
+                jdbcTemplate.queryForList("SELECT drop_monthly_partition(?, ?)", PARENT_TABLE, name);
+            });
+            meterRegistry.counter("notifications.partitions.dropped").increment();
+            log.info("[Retention] Đã drop partition {}", name);
+        } catch (Exception e) {
+            log.warn("[Retention] Drop partition {} thất bại, thử lại lần sau: {}", name, e.getMessage());
+        }
+    }
+
+    private Counter purgedCounter(String type, String reason) {
+        return Counter.builder("notifications.purged")
+                .description("Số notification bị xoá bởi retention job")
+                .tag("type", type)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void pause() {
+        if (properties.getBatchPauseMs() <= 0) return;
+        try {
+            Thread.sleep(properties.getBatchPauseMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind cho thao tác "đọc 1 thông báo".
+ *
+ * PATCH /{id}/read kiểm tra receipt thuộc user và còn chưa đọc (1 query theo PK), rồi chỉ ghi
+ * vào bộ đệm trong RAM và trả ngay số chưa đọc từ counter cache;
+ * các mark được gom lại và ghi xuống DB bằng 1 câu UPDATE mỗi flush-interval-ms
+ * hoặc khi đủ max-pending mục. Khi tắt app (@PreDestroy) bộ đệm được flush hết.
+ *
+ * Counter chỉ bị trừ khi mark hợp lệ; sai lệch do instance khác ghi tự hết khi counter
+ * quá counter-ttl-ms và được nạp lại từ DB.
+ */
+@Component
+@Slf4j
+public class NotificationReadBuffer {
+
+    private final NotificationReceiptRepository receiptRepository;
+    private final TaskScheduler taskScheduler;
+    private final int maxPending;
+    private final long counterTtlMs;
+
+    // userId → receipt id đang chờ ghi
+    private final ConcurrentHashMap<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    // userId → số chưa đọc (đã trừ các mark đang chờ)
+    private final ConcurrentHashMap<Long, UnreadCounter> unreadCounters = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Counter flushedMarks;
+    private final Counter flushFailures;
+
+    private record UnreadCounter(AtomicLong value, long loadedAt) {}
+
+    /** updated = mark hợp lệ và mới (giống "UPDATE ... > 0" khi ghi thẳng DB) */
+    public record MarkResult(boolean updated, long unreadCount) {}
+
+    public NotificationReadBuffer(NotificationReceiptRepository receiptRepository,
+                                  TaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.read-buffer.max-pending:500}") int maxPending,
+                                  @Value("${notification.read-buffer.counter-ttl-ms:30000}") long counterTtlMs) {
+        this.receiptRepository = receiptRepository;
+        this.taskScheduler = taskScheduler;
+        this.maxPending = maxPending;
+        this.counterTtlMs = counterTtlMs;
+        this.flushedMarks = meterRegistry.counter("notifications.read_buffer.flushed");
+        this.flushFailures = meterRegistry.counter("notifications.read_buffer.flush_failures");
+        meterRegistry.gauge("notifications.read_buffer.pending", pendingSize);
+    }
+
+    // ============================================================
+    // API cho NotificationService
+    // ============================================================
+
+    /**
+     * Ghi nhận 1 mark. Id không tồn tại, của user khác hoặc đã đọc (kể cả đang chờ flush)
+     * → updated=false, không buffer và không trừ counter.
+     */
+    public MarkResult markRead(Long userId, Long receiptId) {
+        if (isPending(userId, receiptId) || !receiptRepository.isUnreadFor(receiptId, userId)) {
+            return new MarkResult(false, counter(userId).value().get());
+        }
+        // Nạp counter TRƯỚC khi thêm vào pending: counter nạp sau sẽ trừ luôn mark này,
+        // rồi bị trừ thêm lần nữa bên dưới
+        UnreadCounter counter = counter(userId);
+        // compute() khoá theo key → không xen giữa lúc flush đang remove() set của user này
+        boolean[] added = new boolean[1];
+        pending.compute(userId, (k, set) -> {
+            Set<Long> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            added[0] = s.add(receiptId);
+            return s;
+        });
+        if (!added[0]) {
+            // Request song song cùng id đã buffer trước
+            return new MarkResult(false, counter.value().get());
+        }
+        long remaining = counter.value().updateAndGet(v -> Math.max(0, v - 1));
+        if (pendingSize.incrementAndGet() >= maxPending) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+        return new MarkResult(true, remaining);
+    }
+
+    public boolean isPending(Long userId, Long receiptId) {
+        Set<Long> ids = pending.get(userId);
+        return ids != null && ids.contains(receiptId);
+    }
+
+    public long getUnreadCount(Long userId) {
+        return counter(userId).value().get();
+    }
+
+    /**
+     * Có thông báo mới đã commit cho user: nạp lại counter từ DB.
+     * Không +1 vào cache vì không biết cache được nạp trước hay sau khi receipt commit.
+     */
+    public long onDelivered(Long userId) {
+        unreadCounters.remove(userId);
+        return counter(userId).value().get();
+    }
+
+    /** Bỏ counter đã cache, lần đọc sau nạp lại từ DB (dùng khi push qua unit topic) */
+    public void invalidate(Long userId) {
+        unreadCounters.remove(userId);
+    }
+
+    /**
+     * "Đọc tất cả" đã dời mốc tới upToId → mark lẻ <= mốc không còn cần ghi.
+     * Mark mới hơn mốc vẫn chờ flush; counter nạp lại từ DB ở lần đọc sau.
+     */
+    public void onAllRead(Long userId, long upToId) {
+        pending.computeIfPresent(userId, (k, set) -> {
+            int before = set.size();
+            set.removeIf(id -> id <= upToId);
+            pendingSize.addAndGet(set.size() - before);
+            return set.isEmpty() ? null : set;
+        });
+        unreadCounters.remove(userId);
+    }
+
+    // ============================================================
+    // FLUSH
+    // ============================================================
+
+    @Scheduled(fixedDelayString = "${notification.read-buffer.flush-interval-ms:300}")
+    public void flush() {
+        if (pendingSize.get() == 0 || !flushLock.tryLock()) return;
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Chờ lượt flush đang chạy (nếu có) rồi ghi nốt phần còn lại */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+        if (pendingSize.get() > 0) {
+            log.warn("[ReadBuffer] {} read marks could not be flushed on shutdown", pendingSize.get());
+        }
+    }
+
+    private void flushPending() {
+        List<Long> ids = new ArrayList<>();
+        List<Long> recipients = new ArrayList<>();
+        Map<Long, Set<Long>> snapshot = drain(ids, recipients);
+        if (ids.isEmpty()) return;
+
+        try {
+            receiptRepository.markReadBatch(ids, recipients);
+            flushedMarks.increment(ids.size());
+            log.debug("[ReadBuffer] Flushed {} marks for {} users", ids.size(), snapshot.size());
+        } catch (Exception e) {
+            // Trả lại bộ đệm để lần sau ghi tiếp, không mất mark
+            snapshot.forEach((userId, set) -> pending.merge(userId, set, (cur, old) -> {
+                cur.addAll(old);
+                return cur;
+            }));
+            pendingSize.addAndGet(ids.size());
+            flushFailures.increment();
+            log.error("[ReadBuffer] Flush failed, {} marks re-queued: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    private Map<Long, Set<Long>> drain(List<Long> ids, List<Long> recipients) {
+        Map<Long, Set<Long>> snapshot = new HashMap<>();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            Set<Long> set = pending.remove(userId);
+            if (set == null || set.isEmpty()) continue;
+            snapshot.put(userId, set);
+            pendingSize.addAndGet(-set.size());
+            for (Long id : set) {
+                ids.add(id);
+                recipients.add(userId);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Counter hết hạn được nạp lại từ DB (instance khác có thể đã ghi) rồi trừ mark đang chờ.
+     * COUNT chạy ngoài compute() để không giữ bin của map trong lúc I/O; hai thread cùng nạp
+     * thì bản cài vào trước thắng, bản kia bị bỏ.
+     */
+    private UnreadCounter counter(Long userId) {
+        UnreadCounter current = unreadCounters.get(userId);
+        if (current != null && !isExpired(current)) return current;
+
+        Set<Long> ids = pending.get(userId);
+        long loaded = receiptRepository.countUnread(userId) - (ids != null ? ids.size() : 0);
+        UnreadCounter fresh = new UnreadCounter(new AtomicLong(Math.max(0, loaded)), System.currentTimeMillis());
+
+        if (current == null) {
+            UnreadCounter raced = unreadCounters.putIfAbsent(userId, fresh);
+            return raced != null ? raced : fresh;
+        }
+        if (unreadCounters.replace(userId, current, fresh)) return fresh;
+        UnreadCounter raced = unreadCounters.get(userId);
+        return raced != null ? raced : fresh;
+    }
+
+    private boolean isExpired(UnreadCounter c) {
+        return System.currentTimeMillis() - c.loadedAt() > counterTtlMs;
+    }
+}
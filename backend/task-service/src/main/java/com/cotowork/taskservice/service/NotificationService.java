@@ -1,21 +1,35 @@
 package com.cotowork.taskservice.service;
 
+import com.cotowork.taskservice.client.UserServiceClient;
+import com.cotowork.taskservice.dto.NotificationEvent;
 import com.cotowork.taskservice.dto.NotificationResponse;
 import com.cotowork.taskservice.dto.SendNotificationRequest;
-import com.cotowork.taskservice.entity.Notification;
-import com.cotowork.taskservice.entity.Notification.NotificationType;
-import com.cotowork.taskservice.repository.NotificationRepository;
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.entity.NotificationReadState;
+import com.cotowork.taskservice.entity.NotificationReceipt;
+import com.cotowork.taskservice.entity.NotificationType;
+import com.cotowork.taskservice.entity.OutboxDestination;
+import com.cotowork.taskservice.repository.NotificationMessageRepository;
+import com.cotowork.taskservice.repository.NotificationReadStateRepository;
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
 import com.cotowork.taskservice.security.JwtUserPrincipal;
 import com.cotowork.taskservice.security.SecurityUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,70 +39,90 @@ import java.util.stream.Collectors;
 @Transactional
 public class NotificationService {
 
-    private final NotificationRepository notificationRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationMessageRepository messageRepository;
+    private final NotificationReceiptRepository receiptRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final NotificationMessageCache messageCache;
+    private final NotificationReadBuffer readBuffer;
+    private final NotificationStreamRegistry streamRegistry;
+    private final OutboxService outboxService;
+    private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${notification.stream.replay-limit:200}")
+    private int replayLimit;
 
     // ============================================================
     // ADMIN / UNIT_MANAGER: Gửi thông báo đến nhiều user
     // POST /api/notifications/send
     // ============================================================
 
+    /**
+     * Không có transaction bao ngoài: sendToAll gọi user-service theo từng trang, không được giữ
+     * connection DB qua các lần gọi HTTP. Mỗi phần ghi chạy trong transaction ngắn của riêng nó.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> sendNotification(SendNotificationRequest req) {
         // Dùng đúng SecurityUtils của project - lấy từ request.getAttribute("userDetails")
         JwtUserPrincipal me = getCurrentUser();
 
-        if (req.isSendToAll()) {
-            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
-                    "sendToAll cần inject UserServiceClient. Dùng recipientIds cụ thể.");
-            /*
-             * TODO khi cần sendToAll:
-             * Inject RestTemplate hoặc WebClient gọi:
-             *   GET http://user-service/api/users/ids-active
-             * rồi lấy danh sách Long userId, lọc bỏ me.getUserId()
-             */
-        }
-
-        List<Long> recipientIds = req.getRecipientIds();
-        if (recipientIds == null || recipientIds.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Danh sách người nhận không được rỗng");
+        // UNIT_MANAGER chỉ gửi cho danh sách cụ thể; gửi toàn hệ thống dành cho ADMIN
+        if (req.isSendToAll() && !me.hasRole("ADMIN")) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Chỉ ADMIN được gửi thông báo đến toàn bộ người dùng");
         }
 
-        // Lọc bỏ chính mình
-        List<Long> validRecipients = recipientIds.stream()
-                .filter(id -> !id.equals(me.getUserId()))
-                .distinct()
-                .collect(Collectors.toList());
+        NotificationType type = req.getType() != null ? req.getType() : NotificationType.TASK_ASSIGNED;
 
-        if (validRecipients.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Không có người nhận hợp lệ");
+        // sendToAll: recipientIds bị bỏ qua, danh sách lấy từ user-service theo từng trang
+        List<Long> validRecipients = List.of();
+        if (!req.isSendToAll()) {
+            List<Long> recipientIds = req.getRecipientIds();
+            if (recipientIds == null || recipientIds.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Danh sách người nhận không được rỗng");
+            }
+
+            // Lọc bỏ chính mình
+            validRecipients = recipientIds.stream()
+                    .filter(id -> !id.equals(me.getUserId()))
+                    .distinct()
+                    .collect(Collectors.toList());
+
+            if (validRecipients.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Không có người nhận hợp lệ");
+            }
         }
 
-        NotificationType type = req.getType() != null ? req.getType() : NotificationType.TASK_ASSIGNED;
-
-        // JwtUserPrincipal của project dùng username (không có fullName)
-        List<Notification> notifications = validRecipients.stream()
-                .map(recipientId -> Notification.builder()
-                        .recipientId(recipientId)
-                        .senderId(me.getUserId())
-                        .senderName(me.getUsername())   // ← dùng username vì JwtUserPrincipal không có fullName
-                        .title(req.getTitle())
-                        .message(req.getMessage())
-                        .type(type)
-                        .taskId(req.getTaskId())
-                        .taskTitle(req.getTaskTitle())
-                        .isRead(false)
-                        .build())
-                .collect(Collectors.toList());
+        // Fan-out-on-read: nội dung lưu 1 lần, mỗi người nhận chỉ có 1 receipt nhỏ
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
 
-        List<Notification> saved = notificationRepository.saveAll(notifications);
+        int sentCount;
+        if (req.isSendToAll()) {
+            // Nội dung commit trước; mỗi trang id (mặc định 5000) lấy từ user-service ngoài transaction
+            // rồi được ghi + đưa vào outbox trong transaction riêng → chỉ giữ 1 trang trong RAM.
+            // Lỗi giữa chừng: các trang trước đã gửi vẫn giữ nguyên.
+            NotificationMessage msg = tx.execute(status -> saveMessage(me, req, type));
+            int[] total = {0};
+            userServiceClient.forEachActiveUserIdPage(page -> {
+                List<Long> ids = page.stream()
+                        .filter(id -> !id.equals(me.getUserId()))
+                        .collect(Collectors.toList());
+                total[0] += tx.execute(status -> deliverChunk(msg, ids));
+            });
+            sentCount = total[0];
+        } else {
+            // Danh sách cụ thể: nội dung + receipt + outbox trong cùng 1 transaction
+            List<Long> recipients = validRecipients;
+            sentCount = tx.execute(status -> deliverChunk(saveMessage(me, req, type), recipients));
+        }
 
-        // Push WebSocket real-time đến từng người nhận
-        saved.forEach(this::pushWebSocket);
+        sample.stop(meterRegistry.timer("notifications.send", "recipients", recipientBucket(sentCount)));
 
-        log.info("[Notification] '{}' sent '{}' ({}) to {} users",
-                me.getUsername(), req.getTitle(), type, saved.size());
+        log.info("[Notification] '{}' sent '{}' ({}) to {} users{}",
+                me.getUsername(), req.getTitle(), type, sentCount, req.isSendToAll() ? " (sendToAll)" : "");
 
-        return Map.of("success", true, "sentCount", saved.size());
+        return Map.of("success", true, "sentCount", sentCount);
     }
 
     // ============================================================
@@ -99,22 +133,67 @@ public class NotificationService {
     @Transactional(readOnly = true)
     public Map<String, Object> getMyNotifications(int page, int size) {
         Long userId = getCurrentUserId();
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Pageable pageable = PageRequest.of(page, size);
 
-        Page<Notification> pageResult =
-                notificationRepository.findByRecipientIdOrderByCreatedAtDesc(userId, pageable);
+        // id receipt tăng dần theo thời gian gửi → sort theo id, dùng index (recipient_id, id)
+        Page<NotificationReceipt> pageResult =
+                receiptRepository.findByRecipientIdOrderByIdDesc(userId, pageable);
+
+        // Join nội dung ở tầng ứng dụng qua cache - broadcast chỉ nạp body 1 lần
+        Map<Long, NotificationMessage> messages = messageCache.getAll(pageResult.getContent().stream()
+                .map(NotificationReceipt::getMessageId)
+                .collect(Collectors.toList()));
+
+        // isRead = nằm dưới mốc "đọc tất cả" hoặc đã được đọc lẻ
+        Optional<NotificationReadState> readState = readStateRepository.findById(userId);
 
         return Map.of(
                 "notifications",  pageResult.getContent().stream()
-                        .map(NotificationResponse::from)
+                        .filter(r -> messages.containsKey(r.getMessageId()))
+                        .map(r -> toResponse(r, messages.get(r.getMessageId()), readState))
                         .collect(Collectors.toList()),
-                "totalUnread",    notificationRepository.countByRecipientIdAndIsReadFalse(userId),
+                "totalUnread",    readBuffer.getUnreadCount(userId),
                 "totalElements",  pageResult.getTotalElements(),
                 "totalPages",     pageResult.getTotalPages(),
                 "currentPage",    page
         );
     }
 
+    // ============================================================
+    // USER: Luồng SSE realtime
+    // GET /api/notifications/stream  (header Last-Event-ID khi kết nối lại)
+    // ============================================================
+
+    /**
+     * Không chạy trong transaction: luồng sống tới notification.stream.timeout-ms, connection DB
+     * chỉ được giữ trong transaction ngắn của câu replay và trả lại trước khi emitter được trả về.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter openStream(Long lastEventId) {
+        Long userId = getCurrentUserId();
+        if (lastEventId == null) return streamRegistry.open(userId, List::of);
+
+        TransactionTemplate replayTx = new TransactionTemplate(transactionManager);
+        replayTx.setReadOnly(true);
+        return streamRegistry.open(userId, () -> replayTx.execute(status -> replaySince(userId, lastEventId)));
+    }
+
+    /** Thông báo bị lỡ trong lúc mất kết nối, tối đa replay-limit bản mới nhất */
+    private List<NotificationResponse> replaySince(Long userId, Long lastEventId) {
+        List<NotificationReceipt> receipts = receiptRepository.findByRecipientIdAndIdGreaterThanOrderByIdAsc(
+                userId, lastEventId, PageRequest.of(0, replayLimit));
+        if (receipts.isEmpty()) return List.of();
+
+        Map<Long, NotificationMessage> messages = messageCache.getAll(receipts.stream()
+                .map(NotificationReceipt::getMessageId)
+                .collect(Collectors.toList()));
+        Optional<NotificationReadState> readState = readStateRepository.findById(userId);
+        return receipts.stream()
+                .filter(r -> messages.containsKey(r.getMessageId()))
+                .map(r -> toResponse(r, messages.get(r.getMessageId()), readState))
+                .collect(Collectors.toList());
+    }
+
     // ============================================================
     // USER: Số badge chưa đọc
     // GET /api/notifications/unread-count
@@ -122,7 +201,7 @@ public class NotificationService {
 
     @Transactional(readOnly = true)
     public long getUnreadCount() {
-        return notificationRepository.countByRecipientIdAndIsReadFalse(getCurrentUserId());
+        return readBuffer.getUnreadCount(getCurrentUserId());
     }
 
     // ============================================================
@@ -132,53 +211,93 @@ public class NotificationService {
 
     public Map<String, Object> markAsRead(Long notificationId) {
         Long userId = getCurrentUserId();
-        int updated = notificationRepository.markAsRead(notificationId, userId);
-        long remaining = notificationRepository.countByRecipientIdAndIsReadFalse(userId);
-        return Map.of("success", updated > 0, "unreadCount", remaining);
+        // Write-behind: trả lời ngay từ counter cache, NotificationReadBuffer gom lại ghi DB sau
+        NotificationReadBuffer.MarkResult result = readBuffer.markRead(userId, notificationId);
+        return Map.of("success", result.updated(), "unreadCount", result.unreadCount());
     }
 
     // ============================================================
     // USER: Đánh dấu tất cả đã đọc
-    // PATCH /api/notifications/read-all
+    // PATCH /api/notifications/read-all?upToId=
     // ============================================================
 
-    public Map<String, Object> markAllAsRead() {
+    public Map<String, Object> markAllAsRead(Long upToId) {
         Long userId = getCurrentUserId();
-        int updated = notificationRepository.markAllAsRead(userId);
-        return Map.of("success", true, "markedCount", updated, "unreadCount", 0L);
+        // Chỉ dời mốc read_up_to_id (1 dòng) thay vì UPDATE mọi receipt chưa đọc.
+        // Mốc là id client đã thấy, không phải MAX(id): receipt id nhỏ hơn nhưng chưa commit
+        // (hoặc mới đến sau khi client render) vẫn giữ trạng thái chưa đọc.
+        // Client cũ không gửi upToId → dùng receipt mới nhất đang có (hành vi "đọc tất cả" trước đây).
+        if (upToId == null) {
+            upToId = receiptRepository.findMaxIdByRecipientId(userId);
+        }
+        long before = receiptRepository.countUnread(userId);
+        readStateRepository.advanceTo(userId, upToId);
+        readBuffer.onAllRead(userId, upToId);
+        long remaining = readBuffer.getUnreadCount(userId);
+        return Map.of("success", true, "markedCount", Math.max(0, before - remaining), "unreadCount", remaining);
     }
 
     // ============================================================
-    // INTERNAL: Push WebSocket đến user cụ thể
+    // INTERNAL: ghi nội dung, ghi receipt cho 1 nhóm người nhận + đưa vào outbox
     // ============================================================
 
-    private void pushWebSocket(Notification n) {
-        try {
-            long unreadCount = notificationRepository.countByRecipientIdAndIsReadFalse(n.getRecipientId());
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("id",          n.getId());
-            payload.put("title",       n.getTitle());
-            payload.put("message",     n.getMessage() != null ? n.getMessage() : "");
-            payload.put("type",        n.getType().name());
-            payload.put("senderName",  n.getSenderName());
-            payload.put("taskId",      n.getTaskId());
-            payload.put("taskTitle",   n.getTaskTitle() != null ? n.getTaskTitle() : "");
-            payload.put("createdAt",   n.getCreatedAt().toString());
-            payload.put("unreadCount", unreadCount);
-
-            // Destination: /user/{recipientId}/queue/notifications
-            messagingTemplate.convertAndSendToUser(
-                    n.getRecipientId().toString(),
-                    "/queue/notifications",
-                    payload
-            );
+    private NotificationMessage saveMessage(JwtUserPrincipal me, SendNotificationRequest req, NotificationType type) {
+        // JwtUserPrincipal của project dùng username (không có fullName)
+        NotificationMessage msg = messageRepository.save(NotificationMessage.builder()
+                .senderId(me.getUserId())
+                .senderName(me.getUsername())   // ← dùng username vì JwtUserPrincipal không có fullName
+                .title(req.getTitle())
+                .message(req.getMessage())
+                .type(type)
+                .taskId(req.getTaskId())
+                .taskTitle(req.getTaskTitle())
+                .unitId(req.getUnitId())
+                .createdAt(LocalDateTime.now())
+                .build());
+        messageCache.put(msg);
+        meterRegistry.counter("notifications.rows.written", "table", "notification_messages").increment();
+        return msg;
+    }
 
-            log.debug("[WS] Pushed to userId={}: {}", n.getRecipientId(), n.getTitle());
+    private int deliverChunk(NotificationMessage msg, List<Long> recipientIds) {
+        if (recipientIds.isEmpty()) return 0;
+
+        List<NotificationReceipt> saved =
+                receiptRepository.insertReceipts(msg.getId(), msg.getCreatedAt(), recipientIds);
+        meterRegistry.counter("notifications.rows.written", "table", "notification_receipts").increment(saved.size());
+
+        // Push WebSocket + sự kiện RabbitMQ đi qua outbox, OutboxRelay gửi bất đồng bộ sau khi commit
+        NotificationEvent event = NotificationEvent.builder()
+                .messageId(msg.getId())
+                .receiptIds(saved.stream().map(NotificationReceipt::getId).collect(Collectors.toList()))
+                .recipientIds(saved.stream().map(NotificationReceipt::getRecipientId).collect(Collectors.toList()))
+                .build();
+        outboxService.publish(OutboxService.AGGREGATE_NOTIFICATION, msg.getId(),
+                "notification.created", OutboxDestination.WEBSOCKET, event);
+        outboxService.publish(OutboxService.AGGREGATE_NOTIFICATION, msg.getId(),
+                "notification.created", OutboxDestination.RABBITMQ, event);
+        return saved.size();
+    }
 
-        } catch (Exception e) {
-            log.error("[WS] Push failed userId={}: {}", n.getRecipientId(), e.getMessage());
+    private NotificationResponse toResponse(NotificationReceipt r, NotificationMessage m,
+                                            Optional<NotificationReadState> readState) {
+        NotificationResponse res = NotificationResponse.from(r, m);
+        if (!r.isRead() && readState.isPresent() && readState.get().covers(r)) {
+            res.setRead(true);
+            res.setReadAt(readState.get().getUpdatedAt());
+        } else if (!r.isRead() && readBuffer.isPending(r.getRecipientId(), r.getId())) {
+            res.setRead(true);    // mark đang nằm trong bộ đệm, chưa flush
         }
+        return res;
+    }
+
+    /** Tag cho timer notifications.send - gom theo bậc để không nổ cardinality */
+    private static String recipientBucket(int n) {
+        if (n <= 10) return "le_10";
+        if (n <= 100) return "le_100";
+        if (n <= 1_000) return "le_1k";
+        if (n <= 10_000) return "le_10k";
+        return "gt_10k";
     }
 
     // ============================================================
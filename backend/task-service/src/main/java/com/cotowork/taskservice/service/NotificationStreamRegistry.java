@@ -0,0 +1,187 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.dto.NotificationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Các luồng SSE (GET /api/notifications/stream) đang mở trên node này.
+ *
+ * - Request thread được trả về ngay (servlet async), mỗi luồng có 1 hàng đợi giới hạn
+ *   và 1 virtual thread ghi ra socket → stream rảnh không giữ platform thread nào,
+ *   client chậm không chặn worker của OutboxRelay.
+ * - Hàng đợi đầy → đóng luồng; client tự kết nối lại với Last-Event-ID và lấy bù từ DB.
+ * - Không có sự kiện trong heartbeat-ms → gửi comment để proxy không cắt kết nối.
+ */
+@Component
+@Slf4j
+public class NotificationStreamRegistry {
+
+    private static final String EVENT_NAME = "notification";
+
+    private final ConcurrentHashMap<Long, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+    private final int queueCapacity;
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final Counter replayed;
+    private final Counter closedSlow;
+
+    private record Event(long id, byte[] json) {}
+
+    public NotificationStreamRegistry(ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${notification.stream.timeout-ms:1800000}") long timeoutMs,
+                                      @Value("${notification.stream.heartbeat-ms:25000}") long heartbeatMs,
+                                      @Value("${notification.stream.queue-capacity:256}") int queueCapacity) {
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.queueCapacity = queueCapacity;
+        this.replayed = meterRegistry.counter("notifications.stream.replayed");
+        this.closedSlow = meterRegistry.counter("notifications.stream.closed_slow");
+        meterRegistry.gauge("notifications.stream.open", openStreams);
+    }
+
+    // ============================================================
+    // API
+    // ============================================================
+
+    /**
+     * Mở luồng cho user. Luồng được đăng ký TRƯỚC khi đọc replay nên không lọt sự kiện
+     * nào ở giữa; sự kiện live trùng với replay bị bỏ qua.
+     */
+    public SseEmitter open(Long userId, Supplier<List<NotificationResponse>> replay) {
+        Stream stream = new Stream(userId, new SseEmitter(timeoutMs));
+        streams.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(stream);
+        openStreams.incrementAndGet();
+
+        stream.emitter.onCompletion(stream::close);
+        stream.emitter.onTimeout(stream::close);
+        stream.emitter.onError(e -> stream.close());
+
+        try {
+            stream.start(replay.get());
+        } catch (Exception e) {
+            stream.close();
+            throw e;
+        }
+        return stream.emitter;
+    }
+
+    public boolean hasStream(Long userId) {
+        return streams.containsKey(userId);
+    }
+
+    /** Gọi từ NotificationDispatcher - chỉ xếp hàng, không ghi socket trên thread gọi */
+    public void send(Long userId, Long receiptId, byte[] json) {
+        Set<Stream> userStreams = streams.get(userId);
+        if (userStreams == null) return;
+        for (Stream stream : userStreams) {
+            stream.offer(new Event(receiptId, json));
+        }
+    }
+
+    // ============================================================
+    // STREAM
+    // ============================================================
+
+    private final class Stream {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final LinkedBlockingDeque<Event> queue = new LinkedBlockingDeque<>(queueCapacity);
+        private final Set<Long> replayedIds = new HashSet<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Thread writer;
+
+        private Stream(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /** Replay được đẩy lên đầu hàng đợi, trước các sự kiện live đã đến trong lúc query */
+        private void start(List<NotificationResponse> replay) {
+            for (int i = replay.size() - 1; i >= 0; i--) {
+                NotificationResponse r = replay.get(i);
+                try {
+                    if (!queue.offerFirst(new Event(r.getId(), objectMapper.writeValueAsBytes(r)))) break;
+                } catch (IOException e) {
+                    log.warn("[SSE] Replay serialize failed id={}: {}", r.getId(), e.getMessage());
+                    continue;
+                }
+                replayedIds.add(r.getId());
+            }
+            replayed.increment(replayedIds.size());
+            writer = Thread.ofVirtual().name("sse-" + userId).start(this::drain);
+        }
+
+        private void offer(Event event) {
+            if (closed.get()) return;
+            if (!queue.offerLast(event)) {
+                closedSlow.increment();
+                log.warn("[SSE] Stream of userId={} too slow, closing (client resumes via Last-Event-ID)", userId);
+                emitter.complete();
+                close();
+            }
+        }
+
+        private void drain() {
+            // Live trùng replay chỉ có thể nằm trong hàng đợi ngay sau replay
+            int remainingReplay = replayedIds.size();
+            try {
+                while (!closed.get()) {
+                    Event e = queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    if (e == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                        continue;
+                    }
+                    if (remainingReplay > 0) {
+                        remainingReplay--;
+                    } else if (replayedIds.contains(e.id())) {
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(e.id()))
+                            .name(EVENT_NAME)
+                            .data(e.json(), MediaType.APPLICATION_JSON));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Client đã ngắt kết nối
+                log.debug("[SSE] Stream of userId={} closed: {}", userId, e.getMessage());
+                close();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            streams.computeIfPresent(userId, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            openStreams.decrementAndGet();
+            Thread w = writer;
+            if (w != null && w != Thread.currentThread()) w.interrupt();
+        }
+    }
+}
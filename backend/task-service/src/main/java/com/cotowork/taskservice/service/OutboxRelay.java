@@ -0,0 +1,170 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.config.OutboxProperties;
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.cotowork.taskservice.entity.OutboxStatus;
+import com.cotowork.taskservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker đọc outbox_events và gửi đi.
+ *
+ * Mỗi worker: mở transaction → claim batch (FOR UPDATE SKIP LOCKED) → gửi từng sự kiện →
+ * đánh dấu SENT hoặc hẹn lại với backoff luỹ thừa → commit. Số worker = app.outbox.concurrency.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final NotificationDispatcher dispatcher;
+    private final OutboxProperties properties;
+    private final TransactionTemplate txTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong pendingGauge = new AtomicLong();
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       NotificationDispatcher dispatcher,
+                       OutboxProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+        this.properties = properties;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("outbox.pending", pendingGauge);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isRelayEnabled()) {
+            log.info("[Outbox] Relay disabled");
+            return;
+        }
+        running = true;
+        workers = Executors.newFixedThreadPool(properties.getConcurrency(),
+                Thread.ofPlatform().name("outbox-relay-", 0).factory());
+        for (int i = 0; i < properties.getConcurrency(); i++) {
+            workers.submit(this::loop);
+        }
+        log.info("[Outbox] Relay started with {} workers", properties.getConcurrency());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                if (relayOnce() < properties.getBatchSize()) {
+                    Thread.sleep(properties.getPollIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[Outbox] Relay batch failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(properties.getPollIntervalMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Xử lý 1 batch, trả về số sự kiện đã claim */
+    int relayOnce() {
+        Integer n = txTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxRepository.claimBatch(properties.getBatchSize());
+            for (OutboxEvent event : batch) {
+                deliver(event);
+            }
+            return batch.size();
+        });
+        return n != null ? n : 0;
+    }
+
+    private void deliver(OutboxEvent event) {
+        String destination = event.getDestination().name();
+        try {
+            dispatcher.dispatch(event);
+            event.setStatus(OutboxStatus.SENT);
+            event.setSentAt(LocalDateTime.now());
+            event.setLastError(null);
+            meterRegistry.counter("outbox.delivered", "destination", destination).increment();
+            meterRegistry.timer("outbox.lag", "destination", destination)
+                    .record(Duration.between(event.getCreatedAt(), event.getSentAt()));
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(truncate(e.getMessage()));
+            if (attempts >= properties.getMaxAttempts()) {
+                event.setStatus(OutboxStatus.FAILED);
+                meterRegistry.counter("outbox.dead", "destination", destination).increment();
+                log.error("[Outbox] Event {} ({}) gave up after {} attempts: {}",
+                        event.getId(), event.getEventType(), attempts, e.getMessage());
+            } else {
+                event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs(attempts))));
+                meterRegistry.counter("outbox.retries", "destination", destination).increment();
+                log.warn("[Outbox] Event {} ({}) attempt {} failed: {}",
+                        event.getId(), event.getEventType(), attempts, e.getMessage());
+            }
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long delay = properties.getBaseBackoffMs() << Math.min(attempts - 1, 20);
+        return Math.min(delay, properties.getMaxBackoffMs());
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() > 1000 ? s.substring(0, 1000) : s;
+    }
+
+    // ============================================================
+    // HOUSEKEEPING: xoá sự kiện SENT cũ + cập nhật gauge
+    // ============================================================
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:60000}", initialDelay = 60_000)
+    public void cleanup() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusHours(properties.getSentRetentionHours());
+            int deleted;
+            do {
+                deleted = txTemplate.execute(status -> outboxRepository.deleteSentBatch(cutoff, 5000));
+            } while (deleted == 5000);
+            pendingGauge.set(outboxRepository.countByStatus(OutboxStatus.PENDING));
+        } catch (Exception e) {
+            log.warn("[Outbox] Cleanup failed: {}", e.getMessage());
+        }
+    }
+}
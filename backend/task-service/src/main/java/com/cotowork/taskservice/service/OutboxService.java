@@ -0,0 +1,46 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.entity.OutboxDestination;
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.cotowork.taskservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Ghi sự kiện vào outbox. MANDATORY: bắt buộc chạy trong transaction của nghiệp vụ gọi nó,
+ * để sự kiện chỉ tồn tại khi thay đổi task/notification đã commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String AGGREGATE_TASK = "TASK";
+    public static final String AGGREGATE_NOTIFICATION = "NOTIFICATION";
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, String eventType,
+                        OutboxDestination destination, Object payload) {
+        outboxRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .destination(destination)
+                .payload(toJson(payload))
+                .build());
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Không serialize được payload outbox", e);
+        }
+    }
+}
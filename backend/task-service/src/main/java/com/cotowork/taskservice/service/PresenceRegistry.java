@@ -0,0 +1,179 @@
+package com.cotowork.taskservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Ai đang có kết nối realtime (STOMP session) - để dispatcher bỏ qua user offline.
+ *
+ * - Node-local: userId → (sessionId → có nhận frame gộp hay không), cập nhật từ
+ *   SessionConnected/SessionDisconnect. Client bật frame gộp bằng header CONNECT
+ *   "x-notification-batch: 1" (xem NotificationCoalescer).
+ * - Shared (app.presence.shared=true): mỗi node ghi tập user online của mình lên Redis
+ *   (key có TTL, làm mới định kỳ) và đọc hợp của mọi node về 1 snapshot bất biến.
+ *   Chỉ cần khi dùng broker relay dùng chung; với simple broker mỗi node chỉ push được
+ *   tới session của chính nó nên node-local là đủ.
+ *
+ * isOnline() chỉ đọc ConcurrentHashMap + 1 field volatile → không khoá trên đường gửi.
+ */
+@Component
+@Slf4j
+public class PresenceRegistry {
+
+    private static final String NODES_KEY = "presence:nodes";
+    private static final String NODE_KEY_PREFIX = "presence:node:";
+    public static final String BATCH_HEADER = "x-notification-batch";
+
+    private final ConcurrentHashMap<Long, Map<String, Boolean>> localSessions = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final boolean shared;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Duration nodeTtl;
+
+    // Snapshot user online trên toàn cluster (chỉ dùng khi shared=true)
+    private volatile Set<Long> clusterOnline = Set.of();
+
+    public PresenceRegistry(ObjectProvider<StringRedisTemplate> redisProvider,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.presence.shared:false}") boolean shared,
+                            @Value("${app.presence.node-ttl-seconds:30}") long nodeTtlSeconds) {
+        this.redisProvider = redisProvider;
+        this.shared = shared;
+        this.nodeTtl = Duration.ofSeconds(nodeTtlSeconds);
+        meterRegistry.gaugeMapSize("websocket.users.online", List.of(), localSessions);
+    }
+
+    // ============================================================
+    // LOOKUP (send path)
+    // ============================================================
+
+    public boolean isOnline(Long userId) {
+        return localSessions.containsKey(userId) || clusterOnline.contains(userId);
+    }
+
+    /** Có session trên node này đăng ký nhận frame gộp (/user/queue/notifications-batch) */
+    public boolean hasBatchSession(Long userId) {
+        Map<String, Boolean> sessions = localSessions.get(userId);
+        return sessions != null && sessions.containsValue(Boolean.TRUE);
+    }
+
+    /**
+     * Có session kiểu cũ (nhận từng message ở /user/queue/notifications).
+     * User chỉ online ở node khác (shared presence) được coi là kiểu cũ.
+     */
+    public boolean hasLegacySession(Long userId) {
+        Map<String, Boolean> sessions = localSessions.get(userId);
+        return sessions == null ? clusterOnline.contains(userId) : sessions.containsValue(Boolean.FALSE);
+    }
+
+    // ============================================================
+    // SESSION EVENTS
+    // ============================================================
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Long userId = userId(event.getUser());
+        if (userId == null) return;
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        register(userId, accessor.getSessionId(), wantsBatch(accessor));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Long userId = userId(event.getUser());
+        if (userId == null) return;
+        unregister(userId, event.getSessionId());
+    }
+
+    public void register(Long userId, String sessionId, boolean batch) {
+        localSessions.compute(userId, (k, sessions) -> {
+            Map<String, Boolean> s = sessions != null ? sessions : new ConcurrentHashMap<>();
+            s.put(sessionId, batch);
+            return s;
+        });
+        log.debug("[Presence] online userId={} session={}", userId, sessionId);
+    }
+
+    public void unregister(Long userId, String sessionId) {
+        // Trả về null khi hết session → entry bị xoá, user thành offline
+        localSessions.computeIfPresent(userId, (k, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        log.debug("[Presence] offline userId={} session={}", userId, sessionId);
+    }
+
+    // ============================================================
+    // SHARED BACKEND (Redis)
+    // ============================================================
+
+    @Scheduled(fixedDelayString = "${app.presence.sync-interval-ms:5000}")
+    public void syncShared() {
+        if (!shared) return;
+        StringRedisTemplate redis = redisProvider.getIfAvailable();
+        if (redis == null) return;
+        try {
+            String nodeKey = NODE_KEY_PREFIX + nodeId;
+            redis.delete(nodeKey);
+            if (!localSessions.isEmpty()) {
+                redis.opsForSet().add(nodeKey, localSessions.keySet().stream()
+                        .map(String::valueOf).toArray(String[]::new));
+                redis.expire(nodeKey, nodeTtl);
+            }
+            redis.opsForSet().add(NODES_KEY, nodeId);
+
+            // Node chết → key hết TTL → bị loại khỏi danh sách
+            List<String> liveKeys = new ArrayList<>();
+            Set<String> nodes = redis.opsForSet().members(NODES_KEY);
+            for (String node : nodes != null ? nodes : Set.<String>of()) {
+                String key = NODE_KEY_PREFIX + node;
+                if (Boolean.TRUE.equals(redis.hasKey(key))) {
+                    liveKeys.add(key);
+                } else if (!node.equals(nodeId)) {
+                    redis.opsForSet().remove(NODES_KEY, node);
+                }
+            }
+            Set<String> union = liveKeys.isEmpty() ? Set.of() : redis.opsForSet().union(liveKeys);
+            clusterOnline = union == null ? Set.of() : union.stream()
+                    .map(Long::valueOf)
+                    .collect(Collectors.toUnmodifiableSet());
+        } catch (Exception e) {
+            log.warn("[Presence] Redis sync failed, dùng presence node-local: {}", e.getMessage());
+            clusterOnline = Set.of();
+        }
+    }
+
+    /** Header của frame CONNECT gốc nằm trong simpConnectMessage của CONNECT_ACK */
+    private static boolean wantsBatch(StompHeaderAccessor connectAck) {
+        Object connect = connectAck.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (!(connect instanceof Message<?> connectMessage)) return false;
+        String flag = StompHeaderAccessor.wrap(connectMessage).getFirstNativeHeader(BATCH_HEADER);
+        return "1".equals(flag) || "true".equalsIgnoreCase(flag);
+    }
+
+    private static Long userId(Principal principal) {
+        if (principal == null) return null;
+        try {
+            return Long.valueOf(principal.getName());   // principal name = userId (WebSocketConfig)
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.cotowork.taskservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Gửi payload đã là byte[] JSON: message dựng sẵn nên SimpMessagingTemplate
+ * không chạy lại converter Jackson cho từng người nhận.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompJsonSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /** Tương đương convertAndSendToUser(userId, destination, ...) */
+    public void sendToUser(Long userId, String destination, byte[] json) {
+        send("/user/" + userId + destination, json);
+    }
+
+    public void send(String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, new GenericMessage<>(json, accessor.getMessageHeaders()));
+    }
+}
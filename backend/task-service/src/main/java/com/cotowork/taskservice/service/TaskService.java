@@ -1,7 +1,8 @@
 package com.cotowork.taskservice.service;
 
 import com.cotowork.taskservice.dto.*;
-import com.cotowork.taskservice.entity.Notification;
+import com.cotowork.taskservice.entity.NotificationType;
+import com.cotowork.taskservice.entity.OutboxDestination;
 import com.cotowork.taskservice.entity.Task;
 import com.cotowork.taskservice.entity.TaskPriority;
 import com.cotowork.taskservice.entity.TaskStatus;
@@ -36,6 +37,7 @@ public class TaskService {
 
     private final TaskRepository taskRepository;
     private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // ============================================================
@@ -105,7 +107,9 @@ public class TaskService {
 
         Task saved = taskRepository.save(task);
         log.info("Task created ID: {}", saved.getId());
-        return toDto(saved);
+        TaskResponseDto result = toDto(saved);
+        publishTaskEvent("task.created", saved.getId(), result);
+        return result;
     }
 
     @Transactional(readOnly = true)
@@ -147,7 +151,9 @@ public class TaskService {
         }
 
         Task saved = taskRepository.save(task);
-        return toDto(saved);
+        TaskResponseDto result = toDto(saved);
+        publishTaskEvent("task.updated", saved.getId(), result);
+        return result;
     }
 
     public TaskResponseDto moveTask(Long id, TaskMoveDto dto) {
@@ -168,7 +174,9 @@ public class TaskService {
         if (dto.getNewEndTime() != null) task.setEndTime(dto.getNewEndTime());
 
         Task saved = taskRepository.save(task);
-        return toDto(saved);
+        TaskResponseDto result = toDto(saved);
+        publishTaskEvent("task.updated", saved.getId(), result);
+        return result;
     }
 
     public TaskResponseDto toggleComplete(Long id) {
@@ -179,12 +187,15 @@ public class TaskService {
         task.setStatus(newState ? TaskStatus.COMPLETED : TaskStatus.TODO);
 
         Task saved = taskRepository.save(task);
-        return toDto(saved);
+        TaskResponseDto result = toDto(saved);
+        publishTaskEvent("task.updated", saved.getId(), result);
+        return result;
     }
 
     public void deleteTask(Long id) {
         Task task = findTaskOrThrow(id);
         taskRepository.delete(task);
+        publishTaskEvent("task.deleted", id, Map.of("id", id));
         log.info("Task deleted: {}", id);
     }
 
@@ -293,9 +304,11 @@ public class TaskService {
                         .sendToAll(false)
                         .title("📋 Bạn có công việc mới")
                         .message(message)
-                        .type(Notification.NotificationType.TASK_ASSIGNED)
+                        .type(NotificationType.TASK_ASSIGNED)
                         .taskId(firstTaskId)
                         .taskTitle(dto.getTitle())
+                        // Giao cho cả phòng ban → 1 lần push lên unit topic
+                        .unitId(hasAssignees ? null : dto.getUnitId())
                         .build();
 
                 try {
@@ -308,6 +321,7 @@ public class TaskService {
         }
 
         List<TaskResponseDto> taskDtos = createdTasks.stream().map(this::toDto).collect(Collectors.toList());
+        taskDtos.forEach(t -> publishTaskEvent("task.assigned", t.getId(), t));
 
         log.info("[AssignTask] Created {} task(s), sent {} notification(s)", createdTasks.size(), notifSent);
 
@@ -396,6 +410,11 @@ public class TaskService {
         );
     }
 
+    // Sự kiện task → RabbitMQ qua outbox, ghi cùng transaction với thay đổi task
+    private void publishTaskEvent(String eventType, Long taskId, Object payload) {
+        outboxService.publish(OutboxService.AGGREGATE_TASK, taskId, eventType, OutboxDestination.RABBITMQ, payload);
+    }
+
     private String toJsonString(List<String> list) {
         if (list == null || list.isEmpty()) return null;
         try { return objectMapper.writeValueAsString(list); }
@@ -52,24 +52,128 @@ CREATE TABLE IF NOT EXISTS tasks (
 );
 
 -- ============================================================
--- 4. NOTIFICATIONS TABLE (MỚI THÊM)
+-- 4. NOTIFICATIONS (fan-out-on-read)
 -- ============================================================
-CREATE TABLE IF NOT EXISTS notifications (
+-- notification_messages: nội dung, 1 dòng / lần gửi (dùng chung cho mọi người nhận)
+-- notification_receipts: 1 dòng nhỏ / người nhận, partition theo tháng trên created_at.
+-- PK phải chứa cột partition key → (id, created_at).
+-- Partition tháng được tạo trước bởi ensure_monthly_partitions(),
+-- NotificationPurgeService gọi lại hàm này mỗi lần chạy.
+CREATE TABLE IF NOT EXISTS notification_messages (
+                                                     id              BIGSERIAL       PRIMARY KEY,
+                                                     sender_id       BIGINT          NOT NULL,
+                                                     sender_name     VARCHAR(100),
+                                                     title           VARCHAR(300)    NOT NULL,
+                                                     message         TEXT,
+                                                     type            VARCHAR(30)     NOT NULL DEFAULT 'TASK_ASSIGNED',
+                                                     task_id         BIGINT,
+                                                     task_title      VARCHAR(300),
+                                                     unit_id         BIGINT,         -- thông báo toàn phòng ban
+                                                     created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS notification_receipts (
+                                                     id              BIGSERIAL       NOT NULL,
+                                                     message_id      BIGINT          NOT NULL,
+                                                     recipient_id    BIGINT          NOT NULL,
+                                                     is_read         BOOLEAN         NOT NULL DEFAULT FALSE,
+                                                     read_at         TIMESTAMP,
+                                                     created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                                     PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Mốc "đã đọc đến" của từng user: receipt có id <= read_up_to_id coi như đã đọc.
+-- is_read trên receipt chỉ còn dùng cho thông báo đọc lẻ mới hơn mốc.
+CREATE TABLE IF NOT EXISTS notification_read_state (
+                                                       recipient_id    BIGINT          PRIMARY KEY,
+                                                       read_up_to_id   BIGINT          NOT NULL DEFAULT 0,
+                                                       updated_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Hứng dữ liệu ngoài mọi partition tháng (vd: clock lệch) để INSERT không lỗi
+CREATE TABLE IF NOT EXISTS notification_receipts_default PARTITION OF notification_receipts DEFAULT;
+
+-- Tạo partition <parent>_pYYYY_MM cho tháng chứa p_month (nếu chưa có).
+-- Dòng của tháng đó đang nằm ở partition DEFAULT (vd: clock lệch) thì CREATE ... PARTITION OF
+-- sẽ lỗi → tạo bảng rời, chuyển các dòng đó sang rồi mới ATTACH.
+CREATE OR REPLACE FUNCTION create_monthly_partition(p_parent TEXT, p_month DATE)
+    RETURNS VOID AS $$
+DECLARE
+    v_from     DATE := date_trunc('month', p_month)::DATE;
+    v_to       DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name     TEXT := format('%s_p%s', p_parent, to_char(v_from, 'YYYY_MM'));
+    v_default  REGCLASS;
+    v_has_rows BOOLEAN := FALSE;
+BEGIN
+    IF to_regclass(quote_ident(v_name)) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    SELECT NULLIF(partdefid, 0)::REGCLASS INTO v_default
+    FROM pg_partitioned_table WHERE partrelid = quote_ident(p_parent)::REGCLASS;
+    IF v_default IS NOT NULL THEN
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE created_at >= $1 AND created_at < $2)', v_default)
+            INTO v_has_rows USING v_from, v_to;
+    END IF;
+
+    IF NOT v_has_rows THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                       v_name, p_parent, v_from, v_to);
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+    EXECUTE format('WITH moved AS (DELETE FROM %s WHERE created_at >= $1 AND created_at < $2 RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_default, v_name)
+        USING v_from, v_to;
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   p_parent, v_name, v_from, v_to);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Đảm bảo có partition cho tháng hiện tại và p_months_ahead tháng tới
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_parent TEXT, p_months_ahead INT)
+    RETURNS VOID AS $$
+BEGIN
+    FOR i IN 0..p_months_ahead LOOP
+        PERFORM create_monthly_partition(p_parent, (CURRENT_DATE + make_interval(months => i))::DATE);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- DETACH + DROP 1 partition tháng (retention job gọi trong transaction có lock_timeout ngắn)
+CREATE OR REPLACE FUNCTION drop_monthly_partition(p_parent TEXT, p_partition TEXT)
+    RETURNS VOID AS $$
+BEGIN
+    EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', p_parent, p_partition);
+    EXECUTE format('DROP TABLE %I', p_partition);
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ensure_monthly_partitions('notification_receipts', 3);
+
+-- ============================================================
+-- 4b. OUTBOX (ghi cùng transaction với task/notification, OutboxRelay gửi đi)
+-- ============================================================
+CREATE TABLE IF NOT EXISTS outbox_events (
                                              id              BIGSERIAL       PRIMARY KEY,
-                                             recipient_id    BIGINT          NOT NULL,
-                                             recipient_name  VARCHAR(100),
-                                             sender_id       BIGINT          NOT NULL,
-                                             sender_name     VARCHAR(100),
-                                             title           VARCHAR(300)    NOT NULL,
-                                             message         TEXT,
-                                             type            VARCHAR(30)     NOT NULL DEFAULT 'TASK_ASSIGNED',
-                                             task_id         BIGINT,
-                                             task_title      VARCHAR(300),
-                                             is_read         BOOLEAN         NOT NULL DEFAULT FALSE,
-                                             read_at         TIMESTAMP,
-                                             created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP
+                                             aggregate_type  VARCHAR(30)     NOT NULL,
+                                             aggregate_id    BIGINT,
+                                             event_type      VARCHAR(50)     NOT NULL,
+                                             destination     VARCHAR(20)     NOT NULL,
+                                             payload         TEXT            NOT NULL,
+                                             status          VARCHAR(20)     NOT NULL DEFAULT 'PENDING',
+                                             attempts        INT             NOT NULL DEFAULT 0,
+                                             next_attempt_at TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                             last_error      VARCHAR(1000),
+                                             created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                             sent_at         TIMESTAMP
 );
 
+-- Relay: WHERE status = 'PENDING' AND next_attempt_at <= now() ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox_events (next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_outbox_sent    ON outbox_events (sent_at) WHERE status = 'SENT';
+
 -- ============================================================
 -- 5. INDEXES - TASKS
 -- ============================================================
@@ -91,10 +195,18 @@ CREATE INDEX IF NOT EXISTS idx_task_title_trgm     ON tasks USING gin (title gin
 -- ============================================================
 -- 6. INDEXES - NOTIFICATIONS
 -- ============================================================
-CREATE INDEX IF NOT EXISTS idx_notif_recipient     ON notifications (recipient_id);
-CREATE INDEX IF NOT EXISTS idx_notif_unread        ON notifications (recipient_id, is_read);
-CREATE INDEX IF NOT EXISTS idx_notif_created       ON notifications (created_at DESC);
-CREATE INDEX IF NOT EXISTS idx_notif_task          ON notifications (task_id);
+CREATE INDEX IF NOT EXISTS idx_notif_msg_created   ON notification_messages (created_at);
+CREATE INDEX IF NOT EXISTS idx_notif_msg_task      ON notification_messages (task_id);
+CREATE INDEX IF NOT EXISTS idx_notif_msg_type      ON notification_messages (type, created_at);
+-- Feed: WHERE recipient_id = ? ORDER BY id DESC
+CREATE INDEX IF NOT EXISTS idx_notif_rcpt_feed     ON notification_receipts (recipient_id, id DESC);
+-- Badge: đếm chưa đọc. Receipt dưới mốc read_up_to_id vẫn giữ is_read = FALSE nên index
+-- không tự co lại; có thêm id thì điều kiện id > mốc được lọc ngay trên index, không đọc heap
+DROP INDEX IF EXISTS idx_notif_rcpt_unread;
+CREATE INDEX IF NOT EXISTS idx_notif_rcpt_unread_id ON notification_receipts (recipient_id, id) WHERE is_read = FALSE;
+-- Retention: tìm message mồ côi + quét receipt quá hạn
+CREATE INDEX IF NOT EXISTS idx_notif_rcpt_message  ON notification_receipts (message_id);
+CREATE INDEX IF NOT EXISTS idx_notif_rcpt_purge    ON notification_receipts (is_read, created_at);
 
 -- ============================================================
 -- 7. TRIGGERS
@@ -163,7 +275,7 @@ DO $$
         SELECT COUNT(*) INTO task_count FROM tasks;
         SELECT EXISTS (
             SELECT FROM information_schema.tables
-            WHERE table_name = 'notifications'
+            WHERE table_name = 'notification_receipts'
         ) INTO notif_table_exists;
         RAISE NOTICE '✅ tasks: % rows | notifications table: %', task_count, notif_table_exists;
     END $$;
\ No newline at end of file
@@ -0,0 +1,94 @@
+-- ============================================================
+-- MIGRATION: notifications → notification_messages + notification_receipts
+-- Chạy sau migrate-notifications-partition-functions.sql (cần hàm create_monthly_partition).
+-- DB mới dùng init-task-db.sql là đủ, không cần file này.
+--
+-- Các dòng cùng người gửi, cùng nội dung, tạo trong cùng 1 giây được gom thành
+-- 1 message (đó là 1 lần sendNotification cũ). id receipt giữ nguyên id cũ
+-- để client đang mở không bị lệch id khi đánh dấu đã đọc.
+-- ============================================================
+BEGIN;
+
+-- 1. Bảng mới (cùng cấu trúc với init-task-db.sql)
+CREATE TABLE notification_messages (
+    id              BIGSERIAL       PRIMARY KEY,
+    sender_id       BIGINT          NOT NULL,
+    sender_name     VARCHAR(100),
+    title           VARCHAR(300)    NOT NULL,
+    message         TEXT,
+    type            VARCHAR(30)     NOT NULL DEFAULT 'TASK_ASSIGNED',
+    task_id         BIGINT,
+    task_title      VARCHAR(300),
+    created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE notification_receipts (
+    id              BIGSERIAL       NOT NULL,
+    message_id      BIGINT          NOT NULL,
+    recipient_id    BIGINT          NOT NULL,
+    is_read         BOOLEAN         NOT NULL DEFAULT FALSE,
+    read_at         TIMESTAMP,
+    created_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE notification_receipts_default PARTITION OF notification_receipts DEFAULT;
+
+DO $$
+DECLARE
+    m DATE;
+BEGIN
+    FOR m IN SELECT DISTINCT date_trunc('month', created_at)::DATE FROM notifications LOOP
+        PERFORM create_monthly_partition('notification_receipts', m);
+    END LOOP;
+    PERFORM ensure_monthly_partitions('notification_receipts', 3);
+END $$;
+
+-- 2. Gom nhóm các bản sao thành message
+CREATE TEMP TABLE notif_groups ON COMMIT DROP AS
+SELECT nextval('notification_messages_id_seq') AS message_id, g.*
+FROM (
+    SELECT sender_id, sender_name, title, message, type, task_id, task_title,
+           date_trunc('second', created_at) AS sent_at,
+           MIN(created_at)                  AS created_at
+    FROM notifications
+    GROUP BY sender_id, sender_name, title, message, type, task_id, task_title,
+             date_trunc('second', created_at)
+) g;
+
+INSERT INTO notification_messages (id, sender_id, sender_name, title, message, type, task_id, task_title, created_at)
+SELECT message_id, sender_id, sender_name, title, message, type, task_id, task_title, created_at
+FROM notif_groups;
+
+-- 3. Receipt giữ id + created_at cũ
+INSERT INTO notification_receipts (id, message_id, recipient_id, is_read, read_at, created_at)
+SELECT n.id, g.message_id, n.recipient_id, n.is_read, n.read_at, n.created_at
+FROM notifications n
+JOIN notif_groups g
+  ON  g.sender_id = n.sender_id
+  AND g.title     = n.title
+  AND g.type      = n.type
+  AND g.sent_at   = date_trunc('second', n.created_at)
+  AND g.sender_name IS NOT DISTINCT FROM n.sender_name
+  AND g.message     IS NOT DISTINCT FROM n.message
+  AND g.task_id     IS NOT DISTINCT FROM n.task_id
+  AND g.task_title  IS NOT DISTINCT FROM n.task_title;
+
+SELECT setval('notification_receipts_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM notification_receipts), 1));
+
+-- 4. Index
+CREATE INDEX idx_notif_msg_created  ON notification_messages (created_at);
+CREATE INDEX idx_notif_msg_task     ON notification_messages (task_id);
+CREATE INDEX idx_notif_msg_type     ON notification_messages (type, created_at);
+CREATE INDEX idx_notif_rcpt_feed    ON notification_receipts (recipient_id, id DESC);
+CREATE INDEX idx_notif_rcpt_unread  ON notification_receipts (recipient_id) WHERE is_read = FALSE;
+CREATE INDEX idx_notif_rcpt_message ON notification_receipts (message_id);
+CREATE INDEX idx_notif_rcpt_purge   ON notification_receipts (is_read, created_at);
+
+DROP TABLE notifications;
+
+COMMIT;
+
+ANALYZE notification_messages;
+ANALYZE notification_receipts;
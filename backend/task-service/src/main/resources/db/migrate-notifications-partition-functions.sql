@@ -0,0 +1,66 @@
+-- ============================================================
+-- MIGRATION: hàm quản lý partition tháng (create/ensure/drop_monthly_partition)
+-- Cùng định nghĩa với init-task-db.sql. Idempotent, chạy lại được.
+-- Chạy trước migrate-notifications-fanout.sql; DB đã có notification_receipts
+-- cũng chạy lại file này để cập nhật hàm (xử lý partition DEFAULT, drop partition).
+-- ============================================================
+BEGIN;
+
+-- Tạo partition <parent>_pYYYY_MM cho tháng chứa p_month (nếu chưa có).
+-- Dòng của tháng đó đang nằm ở partition DEFAULT (vd: clock lệch) thì CREATE ... PARTITION OF
+-- sẽ lỗi → tạo bảng rời, chuyển các dòng đó sang rồi mới ATTACH.
+CREATE OR REPLACE FUNCTION create_monthly_partition(p_parent TEXT, p_month DATE)
+    RETURNS VOID AS $$
+DECLARE
+    v_from     DATE := date_trunc('month', p_month)::DATE;
+    v_to       DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name     TEXT := format('%s_p%s', p_parent, to_char(v_from, 'YYYY_MM'));
+    v_default  REGCLASS;
+    v_has_rows BOOLEAN := FALSE;
+BEGIN
+    IF to_regclass(quote_ident(v_name)) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    SELECT NULLIF(partdefid, 0)::REGCLASS INTO v_default
+    FROM pg_partitioned_table WHERE partrelid = quote_ident(p_parent)::REGCLASS;
+    IF v_default IS NOT NULL THEN
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE created_at >= $1 AND created_at < $2)', v_default)
+            INTO v_has_rows USING v_from, v_to;
+    END IF;
+
+    IF NOT v_has_rows THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                       v_name, p_parent, v_from, v_to);
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+    EXECUTE format('WITH moved AS (DELETE FROM %s WHERE created_at >= $1 AND created_at < $2 RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_default, v_name)
+        USING v_from, v_to;
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   p_parent, v_name, v_from, v_to);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Đảm bảo có partition cho tháng hiện tại và p_months_ahead tháng tới
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_parent TEXT, p_months_ahead INT)
+    RETURNS VOID AS $$
+BEGIN
+    FOR i IN 0..p_months_ahead LOOP
+        PERFORM create_monthly_partition(p_parent, (CURRENT_DATE + make_interval(months => i))::DATE);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- DETACH + DROP 1 partition tháng (retention job gọi trong transaction có lock_timeout ngắn)
+CREATE OR REPLACE FUNCTION drop_monthly_partition(p_parent TEXT, p_partition TEXT)
+    RETURNS VOID AS $$
+BEGIN
+    EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', p_parent, p_partition);
+    EXECUTE format('DROP TABLE %I', p_partition);
+END;
+$$ LANGUAGE plpgsql;
+
+COMMIT;
@@ -0,0 +1,29 @@
+-- ============================================================
+-- MIGRATION: thêm mốc đã đọc notification_read_state
+-- Chạy sau migrate-notifications-fanout.sql. Idempotent, chạy lại được.
+--
+-- Mốc của mỗi user = cuối đoạn liên tục đã đọc tính từ receipt cũ nhất,
+-- tức ngay trước receipt chưa đọc đầu tiên (hoặc receipt mới nhất nếu đã đọc hết).
+-- Receipt đã đọc nằm trên mốc vẫn giữ is_read = true làm ngoại lệ.
+-- ============================================================
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS notification_read_state (
+    recipient_id    BIGINT          PRIMARY KEY,
+    read_up_to_id   BIGINT          NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO notification_read_state (recipient_id, read_up_to_id, updated_at)
+SELECT recipient_id,
+       COALESCE(MIN(id) FILTER (WHERE NOT is_read) - 1, MAX(id)),
+       CURRENT_TIMESTAMP
+FROM notification_receipts
+GROUP BY recipient_id
+ON CONFLICT (recipient_id) DO UPDATE
+SET read_up_to_id = GREATEST(notification_read_state.read_up_to_id, EXCLUDED.read_up_to_id),
+    updated_at    = EXCLUDED.updated_at;
+
+COMMIT;
+
+ANALYZE notification_read_state;
@@ -0,0 +1,140 @@
+package com.cotowork.taskservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark đường đi của JwtAuthenticationFilter: trước (6 lần build parser + verify HMAC
+ * cho mỗi request) và sau (verify 1 lần, request sau cùng token lấy từ cache).
+ * Thời gian trung vị mỗi request được log ra.
+ */
+@Slf4j
+class JwtAuthenticationFilterBenchmarkTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes());
+    private static final int REQUESTS = 2_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static String accessToken() {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .id("jti-1")
+                .subject("alice")
+                .claim("userId", 5L)
+                .claim("role", "USER")
+                .claim("unitId", 3L)
+                .claim("permissions", List.of("task:read", "task:create", "task:update"))
+                .claim("type", "access")
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(1, ChronoUnit.HOURS)))
+                .signWith(KEY, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private JwtAuthenticationFilter filter(int cacheMaxSize) {
+        TokenRevocationChecker revocationChecker = mock(TokenRevocationChecker.class, withSettings().stubOnly());
+        JwtUtil jwtUtil = new JwtUtil(SECRET, cacheMaxSize, meterRegistry, revocationChecker);
+        return new JwtAuthenticationFilter(jwtUtil, mock(StreamTicketService.class));
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    /** Thời gian trung vị (ns) của 1 request, sau lượt khởi động */
+    private static long medianNanos(Step step) throws Exception {
+        for (int i = 0; i < REQUESTS; i++) step.run();
+        long[] nanos = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            step.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[REQUESTS / 2];
+    }
+
+    /** Đường cũ: extractUsername, validateToken, extractUserId/Role/UnitId/Permissions - mỗi lần 1 parser mới */
+    private static Object legacyRequest(String token) {
+        Object last = null;
+        for (int i = 0; i < 6; i++) {
+            Claims claims = Jwts.parser().verifyWith(KEY).build().parseSignedClaims(token).getPayload();
+            last = claims.getSubject();
+        }
+        return last;
+    }
+
+    private void filterRequest(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.counter("jwt.verify.cache", "result", result).count();
+    }
+
+    @Test
+    void repeatedRequestsWithTheSameTokenVerifyItOnce() throws Exception {
+        JwtAuthenticationFilter filter = filter(100);
+        String token = accessToken();
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = request(token);
+            SecurityContextHolder.clearContext();
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(request.getAttribute("userDetails")).isInstanceOf(JwtUserPrincipal.class);
+        }
+
+        assertThat(cacheCount("miss")).isEqualTo(1);
+        assertThat(cacheCount("hit")).isEqualTo(9);
+    }
+
+    @Test
+    void filterPathBeforeAndAfter() throws Exception {
+        String token = accessToken();
+        JwtAuthenticationFilter uncached = filter(0);
+        JwtAuthenticationFilter cached = filter(100);
+
+        long legacy = medianNanos(() -> legacyRequest(token));
+        long singleParse = medianNanos(() -> filterRequest(uncached, token));
+        long cacheHit = medianNanos(() -> filterRequest(cached, token));
+
+        log.info("[Benchmark] JWT filter per request: 6 parses {} us, 1 parse {} us, cache hit {} us",
+                legacy / 1_000.0, singleParse / 1_000.0, cacheHit / 1_000.0);
+
+        assertThat(singleParse).isLessThan(legacy);
+        assertThat(cacheHit).isLessThan(singleParse);
+    }
+}
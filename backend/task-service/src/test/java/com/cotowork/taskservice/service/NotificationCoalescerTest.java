@@ -0,0 +1,101 @@
+package com.cotowork.taskservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationCoalescerTest {
+
+    private static final int MAX_ITEMS = 3;
+
+    private StompJsonSender sender;
+    private TaskScheduler taskScheduler;
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        sender = mock(StompJsonSender.class);
+        taskScheduler = mock(TaskScheduler.class);
+        coalescer = new NotificationCoalescer(sender, taskScheduler, new SimpleMeterRegistry(), 50, MAX_ITEMS);
+    }
+
+    private static byte[] json(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Các lịch flush đã đặt, theo thứ tự */
+    private List<Runnable> scheduledFlushes() {
+        ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, atLeast(0)).schedule(tasks.capture(), any(Instant.class));
+        return tasks.getAllValues();
+    }
+
+    private List<String> framesFor(Long userId) {
+        ArgumentCaptor<byte[]> frames = ArgumentCaptor.forClass(byte[].class);
+        verify(sender, atLeast(0)).sendToUser(eq(userId), eq(NotificationCoalescer.BATCH_DESTINATION), frames.capture());
+        return frames.getAllValues().stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList();
+    }
+
+    @Test
+    void itemsWithinTheWindowGoOutAsOneFrameWhenItExpires() {
+        coalescer.enqueue(1L, json("{\"id\":1}"));
+        coalescer.enqueue(1L, json("{\"id\":2}"));
+
+        // Chỉ item đầu tiên đặt lịch; chưa hết window thì chưa gửi gì
+        assertThat(scheduledFlushes()).hasSize(1);
+        assertThat(framesFor(1L)).isEmpty();
+
+        scheduledFlushes().get(0).run();
+        assertThat(framesFor(1L)).containsExactly("[{\"id\":1},{\"id\":2}]");
+    }
+
+    @Test
+    void fullBufferIsSentWithoutWaitingForTheWindow() {
+        coalescer.enqueue(1L, json("1"));
+        coalescer.enqueue(1L, json("2"));
+        coalescer.enqueue(1L, json("3"));
+
+        assertThat(framesFor(1L)).containsExactly("[1,2,3]");
+    }
+
+    @Test
+    void usersAreBufferedSeparately() {
+        coalescer.enqueue(1L, json("1"));
+        coalescer.enqueue(2L, json("2"));
+        coalescer.enqueue(1L, json("3"));
+
+        scheduledFlushes().forEach(Runnable::run);
+
+        assertThat(framesFor(1L)).containsExactly("[1,3]");
+        assertThat(framesFor(2L)).containsExactly("[2]");
+    }
+
+    @Test
+    void staleScheduledFlushDoesNotSendANewerBufferEarly() {
+        // Buffer 1 đầy → gửi ngay; lịch của nó vẫn còn
+        coalescer.enqueue(1L, json("1"));
+        coalescer.enqueue(1L, json("2"));
+        coalescer.enqueue(1L, json("3"));
+        // Buffer 2 mở với lịch riêng
+        coalescer.enqueue(1L, json("4"));
+        List<Runnable> flushes = scheduledFlushes();
+        assertThat(flushes).hasSize(2);
+
+        flushes.get(0).run();
+        assertThat(framesFor(1L)).containsExactly("[1,2,3]");
+
+        flushes.get(1).run();
+        assertThat(framesFor(1L)).containsExactly("[1,2,3]", "[4]");
+    }
+}
@@ -0,0 +1,185 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.client.UserServiceClient;
+import com.cotowork.taskservice.dto.SendNotificationRequest;
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.entity.NotificationReceipt;
+import com.cotowork.taskservice.entity.NotificationType;
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.cotowork.taskservice.repository.NotificationMessageRepository;
+import com.cotowork.taskservice.repository.NotificationReadStateRepository;
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
+import com.cotowork.taskservice.repository.OutboxEventRepository;
+import com.cotowork.taskservice.security.JwtUserPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark khối lượng ghi + độ trễ của sendNotification cho 10 / 1k / 10k người nhận.
+ *
+ * DB được mock: số dòng lấy từ metric notifications.rows.written, số byte là payload
+ * bind vào câu lệnh (nội dung + cột id/cờ/thời gian), so với layout cũ mỗi người nhận
+ * 1 dòng đầy đủ nội dung. Độ trễ chỉ gồm phần ứng dụng (build receipt, serialize outbox),
+ * không gồm I/O PostgreSQL - chỉ log ra, không assert.
+ */
+@Slf4j
+class NotificationFanOutBenchmarkTest {
+
+    /** id, message_id, recipient_id, is_read, created_at */
+    private static final int RECEIPT_ROW_BYTES = 8 + 8 + 8 + 1 + 8;
+    /** id, recipient_id, sender_id, task_id, is_read, created_at của layout cũ (ngoài phần text) */
+    private static final int LEGACY_FIXED_BYTES = 8 + 8 + 8 + 8 + 1 + 8;
+    private static final int RECEIPT_CHUNK_SIZE = 5000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationService service;
+    private final AtomicInteger receiptStatements = new AtomicInteger();
+    private final AtomicLong outboxBytes = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        NotificationMessageRepository messageRepository = mock(NotificationMessageRepository.class);
+        when(messageRepository.save(any())).thenAnswer(inv -> {
+            NotificationMessage m = inv.getArgument(0);
+            m.setId(1L);
+            return m;
+        });
+
+        // Giống NotificationReceiptRepositoryImpl: 1 câu INSERT ... unnest() cho mỗi 5000 id
+        NotificationReceiptRepository receiptRepository = mock(NotificationReceiptRepository.class);
+        AtomicLong receiptIds = new AtomicLong();
+        when(receiptRepository.insertReceipts(anyLong(), any(), anyList())).thenAnswer(inv -> {
+            List<Long> recipients = inv.getArgument(2);
+            LocalDateTime createdAt = inv.getArgument(1);
+            List<NotificationReceipt> saved = new ArrayList<>(recipients.size());
+            for (int from = 0; from < recipients.size(); from += RECEIPT_CHUNK_SIZE) {
+                receiptStatements.incrementAndGet();
+                for (Long r : recipients.subList(from, Math.min(from + RECEIPT_CHUNK_SIZE, recipients.size()))) {
+                    saved.add(NotificationReceipt.builder()
+                            .id(receiptIds.incrementAndGet()).messageId(inv.getArgument(0))
+                            .recipientId(r).isRead(false).createdAt(createdAt).build());
+                }
+            }
+            return saved;
+        });
+
+        OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+        when(outboxRepository.save(any())).thenAnswer(inv -> {
+            OutboxEvent e = inv.getArgument(0);
+            outboxBytes.addAndGet(e.getPayload().getBytes(StandardCharsets.UTF_8).length);
+            return e;
+        });
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+
+        service = new NotificationService(messageRepository, receiptRepository,
+                mock(NotificationReadStateRepository.class), mock(NotificationMessageCache.class),
+                mock(NotificationReadBuffer.class), mock(NotificationStreamRegistry.class),
+                new OutboxService(outboxRepository, objectMapper), mock(UserServiceClient.class),
+                meterRegistry, transactionManager);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("userDetails", JwtUserPrincipal.builder()
+                .userId(0L).username("admin").role("ADMIN").permissions(List.of()).build());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static SendNotificationRequest announcement(int recipients) {
+        char[] body = new char[1000];
+        Arrays.fill(body, 'x');
+        return SendNotificationRequest.builder()
+                .recipientIds(LongStream.rangeClosed(1, recipients).boxed().toList())
+                .title("Thông báo toàn đơn vị")
+                .message(new String(body))
+                .type(NotificationType.TASK_ASSIGNED)
+                .taskId(42L)
+                .taskTitle("Kế hoạch quý")
+                .build();
+    }
+
+    private static int contentBytes(SendNotificationRequest req) {
+        return utf8(req.getTitle()) + utf8(req.getMessage()) + utf8(req.getTaskTitle()) + utf8("admin")
+                + utf8(req.getType().name());
+    }
+
+    private static int utf8(String s) {
+        return s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private double rowsWritten(String table) {
+        return meterRegistry.counter("notifications.rows.written", "table", table).count();
+    }
+
+    @ParameterizedTest(name = "{0} người nhận")
+    @ValueSource(ints = {10, 1_000, 10_000})
+    void fanOutWritesContentOnceAndOneSlimReceiptPerRecipient(int recipients) {
+        SendNotificationRequest req = announcement(recipients);
+
+        // Khởi động JIT trước khi đo
+        for (int i = 0; i < 5; i++) {
+            service.sendNotification(req);
+        }
+        meterRegistry.clear();
+        receiptStatements.set(0);
+        outboxBytes.set(0);
+
+        int runs = 10;
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            service.sendNotification(req);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        // Mỗi lần gửi: 1 dòng nội dung + N receipt, INSERT receipt theo chunk 5000
+        assertThat(rowsWritten("notification_messages")).isEqualTo(runs);
+        assertThat(rowsWritten("notification_receipts")).isEqualTo((double) runs * recipients);
+        assertThat(receiptStatements.get()).isEqualTo(runs * ((recipients + RECEIPT_CHUNK_SIZE - 1) / RECEIPT_CHUNK_SIZE));
+
+        int content = contentBytes(req);
+        long newBytes = content + 8L * 4 + (long) RECEIPT_ROW_BYTES * recipients;
+        long legacyBytes = (long) (content + LEGACY_FIXED_BYTES) * recipients;
+        log.info("[Benchmark] {} recipients: median {} us, p90 {} us, table payload {} B (legacy {} B, x{}), outbox {} B",
+                recipients, nanos[runs / 2] / 1_000, nanos[runs * 9 / 10] / 1_000,
+                newBytes, legacyBytes, String.format("%.1f", (double) legacyBytes / newBytes), outboxBytes.get() / runs);
+
+        if (recipients >= 1_000) {
+            // Nội dung ~1 KB: layout receipt ghi ít hơn hẳn khi nhiều người nhận
+            assertThat(newBytes * 10).isLessThan(legacyBytes);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * NotificationReadBuffer trên 1 "DB" giả trong RAM: receipt của từng user + tập đã đọc.
+ * Tắt app giữa chừng = flushOnShutdown() rồi tạo buffer mới trên cùng DB.
+ */
+class NotificationReadBufferTest {
+
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+
+    // receiptId → recipientId
+    private final Map<Long, Long> receipts = new HashMap<>();
+    private final Set<Long> readInDb = new HashSet<>();
+    private NotificationReceiptRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        receipts.put(11L, ALICE);
+        receipts.put(12L, ALICE);
+        receipts.put(13L, ALICE);
+        receipts.put(21L, BOB);
+
+        repository = mock(NotificationReceiptRepository.class);
+        when(repository.countUnread(anyLong())).thenAnswer(inv -> receipts.entrySet().stream()
+                .filter(e -> e.getValue().equals(inv.getArgument(0)) && !readInDb.contains(e.getKey()))
+                .count());
+        when(repository.isUnreadFor(anyLong(), anyLong())).thenAnswer(inv ->
+                inv.getArgument(1).equals(receipts.get(inv.<Long>getArgument(0)))
+                        && !readInDb.contains(inv.<Long>getArgument(0)));
+        when(repository.markReadBatch(anyList(), anyList())).thenAnswer(this::markInDb);
+    }
+
+    private int markInDb(InvocationOnMock inv) {
+        List<Long> ids = inv.getArgument(0);
+        List<Long> recipients = inv.getArgument(1);
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (recipients.get(i).equals(receipts.get(ids.get(i))) && readInDb.add(ids.get(i))) updated++;
+        }
+        return updated;
+    }
+
+    private NotificationReadBuffer newBuffer() {
+        return new NotificationReadBuffer(repository, mock(TaskScheduler.class), new SimpleMeterRegistry(), 500, 30_000);
+    }
+
+    @Test
+    void marksSurviveRestartThroughShutdownFlush() {
+        NotificationReadBuffer buffer = newBuffer();
+        assertThat(buffer.markRead(ALICE, 11L)).isEqualTo(new NotificationReadBuffer.MarkResult(true, 2));
+        assertThat(buffer.markRead(ALICE, 12L)).isEqualTo(new NotificationReadBuffer.MarkResult(true, 1));
+        verify(repository, never()).markReadBatch(anyList(), anyList());
+
+        buffer.flushOnShutdown();
+
+        NotificationReadBuffer restarted = newBuffer();
+        assertThat(readInDb).containsExactlyInAnyOrder(11L, 12L);
+        assertThat(restarted.getUnreadCount(ALICE)).isEqualTo(1);
+        assertThat(restarted.markRead(ALICE, 11L).updated()).isFalse();
+        assertThat(restarted.markRead(ALICE, 13L)).isEqualTo(new NotificationReadBuffer.MarkResult(true, 0));
+    }
+
+    @Test
+    void failedFlushIsRequeuedAndWrittenOnShutdown() {
+        NotificationReadBuffer buffer = newBuffer();
+        buffer.markRead(ALICE, 11L);
+        buffer.markRead(BOB, 21L);
+
+        doThrow(new RuntimeException("db down")).doAnswer(this::markInDb)
+                .when(repository).markReadBatch(anyList(), anyList());
+
+        buffer.flush();
+        assertThat(readInDb).isEmpty();
+        assertThat(buffer.isPending(ALICE, 11L)).isTrue();
+
+        buffer.flushOnShutdown();
+        assertThat(readInDb).containsExactlyInAnyOrder(11L, 21L);
+        assertThat(buffer.isPending(ALICE, 11L)).isFalse();
+    }
+
+    @Test
+    void foreignUnknownAndRepeatedMarksAreNotCounted() {
+        NotificationReadBuffer buffer = newBuffer();
+        assertThat(buffer.getUnreadCount(ALICE)).isEqualTo(3);
+
+        assertThat(buffer.markRead(ALICE, 21L)).isEqualTo(new NotificationReadBuffer.MarkResult(false, 3));
+        assertThat(buffer.markRead(ALICE, 999L)).isEqualTo(new NotificationReadBuffer.MarkResult(false, 3));
+        assertThat(buffer.markRead(ALICE, 11L)).isEqualTo(new NotificationReadBuffer.MarkResult(true, 2));
+        assertThat(buffer.markRead(ALICE, 11L)).isEqualTo(new NotificationReadBuffer.MarkResult(false, 2));
+
+        buffer.flushOnShutdown();
+        assertThat(readInDb).containsExactly(11L);
+    }
+}
@@ -0,0 +1,194 @@
+package com.cotowork.taskservice.service;
+
+import com.cotowork.taskservice.config.OutboxProperties;
+import com.cotowork.taskservice.dto.NotificationEvent;
+import com.cotowork.taskservice.entity.NotificationMessage;
+import com.cotowork.taskservice.entity.NotificationType;
+import com.cotowork.taskservice.entity.OutboxDestination;
+import com.cotowork.taskservice.entity.OutboxEvent;
+import com.cotowork.taskservice.repository.NotificationReceiptRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark fan-out WebSocket 5000 người nhận: serialize-once (NotificationDispatcher) so với
+ * cách cũ - HashMap + Jackson converter của SimpMessagingTemplate cho từng người.
+ *
+ * Cả 2 đường cùng đi qua 1 SimpMessagingTemplate (converter như cấu hình STOMP mặc định)
+ * tới channel không làm gì, cùng gọi presence/readBuffer như nhau. Thời gian và số byte
+ * cấp phát (ThreadMXBean) được log ra; test chỉ assert frame giống hệt nhau và đường mới
+ * cấp phát ít hơn.
+ */
+@Slf4j
+class NotificationWebSocketFanOutBenchmarkTest {
+
+    private static final int RECIPIENTS = 5_000;
+    private static final int ROUNDS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Message<?>> captured = new ArrayList<>();
+    private boolean capture;
+
+    private SimpMessagingTemplate messagingTemplate;
+    private PresenceRegistry presence;
+    private NotificationReadBuffer readBuffer;
+    private NotificationDispatcher dispatcher;
+    private NotificationMessage message;
+    private OutboxEvent outboxEvent;
+    private NotificationEvent notificationEvent;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MessageChannel channel = (msg, timeout) -> {
+            if (capture) captured.add(msg);
+            return true;
+        };
+        messagingTemplate = new SimpMessagingTemplate(channel);
+        messagingTemplate.setMessageConverter(new CompositeMessageConverter(List.of(
+                new StringMessageConverter(), new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+
+        message = NotificationMessage.builder()
+                .id(7L).senderId(1L).senderName("admin")
+                .title("Họp giao ban").message("Nội dung thông báo ".repeat(20))
+                .type(NotificationType.TASK_ASSIGNED).taskId(42L).taskTitle("Kế hoạch quý")
+                .createdAt(LocalDateTime.of(2026, 1, 5, 9, 30))
+                .build();
+        NotificationMessageCache messageCache = mock(NotificationMessageCache.class, withSettings().stubOnly());
+        when(messageCache.getAll(anyCollection())).thenReturn(Map.of(message.getId(), message));
+
+        // Lookup trên đường gửi dùng bản thật (mock Mockito cấp phát mỗi lời gọi, làm lệch số đo)
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        presence = new PresenceRegistry(mock(ObjectProvider.class), meterRegistry, false, 30);
+        List<Long> recipients = LongStream.rangeClosed(1, RECIPIENTS).boxed().toList();
+        recipients.forEach(id -> presence.register(id, "s" + id, false));
+        readBuffer = new NotificationReadBuffer(mock(NotificationReceiptRepository.class), mock(TaskScheduler.class),
+                meterRegistry, 500, 30_000) {
+            @Override
+            public long onDelivered(Long userId) {
+                return 3;
+            }
+        };
+
+        dispatcher = new NotificationDispatcher(new StompJsonSender(messagingTemplate),
+                mock(NotificationCoalescer.class), mock(RabbitTemplate.class), messageCache, readBuffer,
+                new OutboxProperties(), objectMapper, presence,
+                new NotificationStreamRegistry(objectMapper, meterRegistry, 60_000, 25_000, 16), meterRegistry);
+
+        notificationEvent = NotificationEvent.builder()
+                .messageId(message.getId())
+                .recipientIds(recipients)
+                .receiptIds(recipients.stream().map(id -> id + 1_000_000).toList())
+                .build();
+        outboxEvent = OutboxEvent.builder()
+                .aggregateType(OutboxService.AGGREGATE_NOTIFICATION)
+                .aggregateId(message.getId())
+                .destination(OutboxDestination.WEBSOCKET)
+                .payload(objectMapper.writeValueAsString(notificationEvent))
+                .build();
+    }
+
+    /** Đường cũ: 1 HashMap + 1 lần Jackson cho mỗi người nhận */
+    private void legacyFanOut() {
+        NotificationMessage n = message;
+        for (int i = 0; i < notificationEvent.getRecipientIds().size(); i++) {
+            Long recipientId = notificationEvent.getRecipientIds().get(i);
+            if (!presence.isOnline(recipientId)) continue;
+            long unreadCount = readBuffer.onDelivered(recipientId);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("id",          notificationEvent.getReceiptIds().get(i));
+            payload.put("title",       n.getTitle());
+            payload.put("message",     n.getMessage() != null ? n.getMessage() : "");
+            payload.put("type",        n.getType().name());
+            payload.put("senderName",  n.getSenderName());
+            payload.put("taskId",      n.getTaskId());
+            payload.put("taskTitle",   n.getTaskTitle() != null ? n.getTaskTitle() : "");
+            payload.put("createdAt",   n.getCreatedAt().toString());
+            payload.put("unreadCount", unreadCount);
+
+            messagingTemplate.convertAndSendToUser(recipientId.toString(), "/queue/notifications", payload);
+        }
+    }
+
+    private void serializeOnceFanOut() throws Exception {
+        dispatcher.dispatch(outboxEvent);
+    }
+
+    private interface FanOut {
+        void run() throws Exception;
+    }
+
+    /** [thời gian trung vị (ns), byte cấp phát trung vị] của 1 lượt fan-out */
+    private static long[] measure(FanOut fanOut) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < ROUNDS; i++) fanOut.run();   // khởi động JIT
+
+        long[] nanos = new long[ROUNDS];
+        long[] bytes = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            fanOut.run();
+            nanos[i] = System.nanoTime() - start;
+            bytes[i] = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        java.util.Arrays.sort(nanos);
+        java.util.Arrays.sort(bytes);
+        return new long[]{nanos[ROUNDS / 2], bytes[ROUNDS / 2]};
+    }
+
+    @Test
+    void serializeOnceSendsTheSameFramesAsTheLegacyPath() throws Exception {
+        capture = true;
+        legacyFanOut();
+        List<Message<?>> legacy = new ArrayList<>(captured);
+        captured.clear();
+        serializeOnceFanOut();
+        capture = false;
+
+        assertThat(captured).hasSize(RECIPIENTS).hasSameSizeAs(legacy);
+        for (int i : new int[]{0, RECIPIENTS / 2, RECIPIENTS - 1}) {
+            assertThat(objectMapper.readTree((byte[]) captured.get(i).getPayload()))
+                    .isEqualTo(objectMapper.readTree((byte[]) legacy.get(i).getPayload()));
+            assertThat(captured.get(i).getHeaders().get("simpDestination"))
+                    .isEqualTo(legacy.get(i).getHeaders().get("simpDestination"));
+        }
+    }
+
+    @Test
+    void serializeOnceFanOutAllocatesLessThanPerRecipientConversion() throws Exception {
+        long[] legacy = measure(this::legacyFanOut);
+        long[] serializeOnce = measure(this::serializeOnceFanOut);
+
+        log.info("[Benchmark] WS fan-out {} recipients: legacy {} ms / {} KB, serialize-once {} ms / {} KB",
+                RECIPIENTS, legacy[0] / 1_000_000.0, legacy[1] / 1024,
+                serializeOnce[0] / 1_000_000.0, serializeOnce[1] / 1024);
+
+        assertThat(serializeOnce[1]).isLessThan(legacy[1]);
+    }
+}
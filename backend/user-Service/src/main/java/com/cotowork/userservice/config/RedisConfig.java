@@ -0,0 +1,27 @@
+package com.cotowork.userservice.config;
+
+import com.cotowork.userservice.security.TokenRevocationService;
+import com.cotowork.userservice.service.UserStatusCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis pub/sub used to keep per-instance caches consistent across user-service instances
+ */
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       UserStatusCache userStatusCache,
+                                                                       TokenRevocationService tokenRevocationService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(userStatusCache, new ChannelTopic(UserStatusCache.CHANNEL));
+        container.addMessageListener(tokenRevocationService, new ChannelTopic(TokenRevocationService.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,12 @@
+package com.cotowork.userservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. token revocation filter rebuild)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
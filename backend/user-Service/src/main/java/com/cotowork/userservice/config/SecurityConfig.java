@@ -2,6 +2,7 @@ package com.cotowork.userservice.config;
 
 import com.cotowork.userservice.security.CustomAuthenticationEntryPoint;
 import com.cotowork.userservice.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -55,6 +56,9 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // No sessions
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatch of streamed downloads (StreamingResponseBody) was already authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         // 1. SWAGGER (Thêm dòng này để vào được link Swagger)
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 
@@ -106,6 +110,9 @@ public class SecurityConfig {
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
         
+        // Paged list endpoints return the total in a header
+        configuration.setExposedHeaders(Arrays.asList("X-Total-Count"));
+        
         // Cache preflight response for 1 hour
         configuration.setMaxAge(3600L);
         
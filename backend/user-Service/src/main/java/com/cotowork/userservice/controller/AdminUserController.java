@@ -3,16 +3,23 @@ package com.cotowork.userservice.controller;
 import com.cotowork.userservice.dto.*;
 import com.cotowork.userservice.entity.UserRole;
 import com.cotowork.userservice.service.AdminUserService;
+import com.cotowork.userservice.service.BulkPasswordResetService;
+import com.cotowork.userservice.service.BulkUserJobService;
+import com.cotowork.userservice.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -26,6 +33,9 @@ import java.util.List;
 public class AdminUserController {
 
     private final AdminUserService adminUserService;
+    private final BulkPasswordResetService bulkPasswordResetService;
+    private final BulkUserJobService bulkUserJobService;
+    private final UserImportService userImportService;
 
     /**
      * Create user with admin privileges
@@ -151,6 +161,61 @@ public class AdminUserController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Bulk user operation as an asynchronous job (for very large id sets)
+     */
+    @PostMapping("/bulk/jobs")
+    @PreAuthorize("hasAuthority('user:manage_all')")
+    public ResponseEntity<BulkJobStatusDto> submitBulkJob(@Valid @RequestBody BulkUserOperationDto dto) {
+        log.info("Admin submitting bulk job: {} on {} users", dto.getOperation(), dto.getUserIds().size());
+        BulkJobStatusDto job = bulkUserJobService.submit(dto);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/admin/users/bulk/jobs/" + job.getJobId())
+                .body(job);
+    }
+
+    /**
+     * Progress of a bulk job
+     */
+    @GetMapping("/bulk/jobs/{jobId}")
+    @PreAuthorize("hasAuthority('user:manage_all')")
+    public ResponseEntity<BulkJobStatusDto> getBulkJobStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(bulkUserJobService.getStatus(jobId));
+    }
+
+    /**
+     * Bulk password reset - streams "userId,username,tempPassword" CSV as chunks commit
+     */
+    @PostMapping("/bulk/reset-password")
+    @PreAuthorize("hasAuthority('user:manage_all')")
+    public ResponseEntity<StreamingResponseBody> bulkResetPasswords(@Valid @RequestBody BulkPasswordResetDto dto) {
+        log.info("Admin bulk resetting passwords for {} users", dto.getUserIds().size());
+        List<Long> userIds = bulkPasswordResetService.requireExistingUsers(dto.getUserIds());
+        StreamingResponseBody body = out -> bulkPasswordResetService.resetPasswordsAsCsv(userIds, out);
+        return ResponseEntity.ok()
+                .header("Content-Type", "text/csv; charset=UTF-8")
+                .header("Content-Disposition", "attachment; filename=reset-passwords.csv")
+                .header("Cache-Control", "no-store")
+                .body(body);
+    }
+
+    /**
+     * Bulk import users from CSV (header row) or NDJSON; invalid rows are reported, not fatal
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAuthority('user:manage_all')")
+    public ResponseEntity<UserImportResultDto> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) throws IOException {
+        
+        UserImportService.Format format = contentType.startsWith("application/x-ndjson")
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        log.info("Admin importing users ({})", format);
+        UserImportResultDto result = userImportService.importUsers(request.getInputStream(), format);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Get user statistics
      */
@@ -200,21 +265,22 @@ public class AdminUserController {
     }
 
     /**
-     * Export users data (CSV format)
+     * Export users data (CSV format, streamed; gzip=true returns users.csv.gz)
      */
     @GetMapping("/export")
     @PreAuthorize("hasAuthority('user:manage_all')")
-    public ResponseEntity<String> exportUsers(
+    public ResponseEntity<StreamingResponseBody> exportUsers(
             @RequestParam(required = false) UserRole role,
             @RequestParam(required = false) Long unitId,
-            @RequestParam(required = false) Boolean isActive) {
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(defaultValue = "false") boolean gzip) {
         
         log.info("Admin exporting users data");
-        String csvData = adminUserService.exportUsers(role, unitId, isActive);
+        StreamingResponseBody body = out -> adminUserService.exportUsers(role, unitId, isActive, gzip, out);
         return ResponseEntity.ok()
-                .header("Content-Type", "text/csv")
-                .header("Content-Disposition", "attachment; filename=users.csv")
-                .body(csvData);
+                .header("Content-Type", gzip ? "application/gzip" : "text/csv; charset=UTF-8")
+                .header("Content-Disposition", "attachment; filename=" + (gzip ? "users.csv.gz" : "users.csv"))
+                .body(body);
     }
 
     /**
@@ -94,15 +94,18 @@ public class AuthController {
 
     /**
      * Logout endpoint
-     * POST /api/auth/logout
+     * POST /api/auth/logout  (optional body: { "refreshToken": "..." })
      */
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+                                       @RequestBody(required = false) LogoutRequestDto logoutRequest) {
         log.info("Logout request received");
         
-        if (authorizationHeader != null && !authorizationHeader.trim().isEmpty()) {
-            authenticationService.logout(authorizationHeader);
-        }
+        String accessToken = authorizationHeader != null && !authorizationHeader.trim().isEmpty()
+                ? authorizationHeader : null;
+        String refreshToken = logoutRequest != null && logoutRequest.getRefreshToken() != null
+                && !logoutRequest.getRefreshToken().isBlank() ? logoutRequest.getRefreshToken() : null;
+        authenticationService.logout(accessToken, refreshToken);
         
         return ResponseEntity.ok().build();
     }
@@ -4,9 +4,11 @@ import com.cotowork.userservice.dto.*;
 import com.cotowork.userservice.entity.UserRole;
 import com.cotowork.userservice.security.SecurityUtils;
 import com.cotowork.userservice.service.UserService;
+import com.cotowork.userservice.service.UserSuggestIndex;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,6 +29,7 @@ import java.util.List;
 public class UserController {
     
     private final UserService userService;
+    private final UserSuggestIndex userSuggestIndex;
     @GetMapping("/admin/users")  // Thêm vào UserController
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UserResponseDto>> getAllUsersAdmin() {
@@ -40,6 +43,18 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * Internal: keyset stream of active user ids, used by task-service for sendToAll.
+     * GET /api/users/internal/active-ids?afterId=0&limit=5000
+     */
+    @GetMapping("/internal/active-ids")
+    @PreAuthorize("hasAnyRole('ADMIN', 'UNIT_MANAGER')")
+    public ResponseEntity<UserIdPageDto> getActiveUserIds(
+            @RequestParam(defaultValue = "0") Long afterId,
+            @RequestParam(defaultValue = "5000") int limit) {
+        return ResponseEntity.ok(userService.getActiveUserIds(afterId, limit));
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('user:read')")
     public ResponseEntity<UserResponseDto> getUserById(@PathVariable Long id) {
@@ -92,12 +107,20 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
     
+    /**
+     * Members of a unit, one page at a time (body stays a plain list; total in X-Total-Count)
+     */
     @GetMapping("/unit/{unitId}")
     @PreAuthorize("hasAuthority('user:read')")
-    public ResponseEntity<List<UserResponseDto>> getUsersByUnit(@PathVariable Long unitId) {
+    public ResponseEntity<List<UserResponseDto>> getUsersByUnit(
+            @PathVariable Long unitId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "500") int size) {
         log.info("GET /api/users/unit/{} - Fetching users by unit", unitId);
-        List<UserResponseDto> users = userService.getUsersByUnit(unitId);
-        return ResponseEntity.ok(users);
+        Page<UserResponseDto> users = userService.getUsersByUnit(unitId, page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(users.getTotalElements()))
+                .body(users.getContent());
     }
     
     @GetMapping("/role/{role}")
@@ -110,10 +133,29 @@ public class UserController {
     
     @GetMapping("/search")
     @PreAuthorize("hasAuthority('user:read')")
-    public ResponseEntity<List<UserResponseDto>> searchUsers(@RequestParam String keyword) {
+    public ResponseEntity<List<UserResponseDto>> searchUsers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
         log.info("GET /api/users/search?keyword={} - Searching users", keyword);
-        List<UserResponseDto> users = userService.searchUsers(keyword);
-        return ResponseEntity.ok(users);
+        Page<UserResponseDto> users = userService.searchUsers(keyword, page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(users.getTotalElements()))
+                .body(users.getContent());
+    }
+    
+    /**
+     * Typeahead for user pickers, served from the in-memory index (no DB round trip).
+     * GET /api/users/suggest?q=nguyen&limit=10&unitId=3&activeOnly=true
+     */
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAuthority('user:read')")
+    public ResponseEntity<List<UserSuggestionDto>> suggestUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Long unitId,
+            @RequestParam(defaultValue = "true") boolean activeOnly) {
+        return ResponseEntity.ok(userSuggestIndex.suggest(q, unitId, activeOnly, limit));
     }
     
 
@@ -0,0 +1,30 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for the status of an asynchronous bulk user operation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkJobStatusDto {
+
+    private String jobId;
+    private String operation;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private Integer totalUsers;
+    private Integer processedUsers;
+    private Integer affectedUsers;
+    private Integer failedUsers;
+    private List<BulkUserFailureDto> failures; // capped, see failedUsers for the full count
+    private Integer progressPercent;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
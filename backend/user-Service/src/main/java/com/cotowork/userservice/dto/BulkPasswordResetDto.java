@@ -0,0 +1,22 @@
+package com.cotowork.userservice.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for bulk password reset (credentials are streamed back as CSV)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkPasswordResetDto {
+
+    @NotEmpty(message = "User IDs list cannot be empty")
+    private List<Long> userIds;
+
+    @Size(max = 500, message = "Reason must not exceed 500 characters")
+    private String reason;
+}
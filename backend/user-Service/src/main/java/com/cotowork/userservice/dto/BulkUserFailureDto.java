@@ -0,0 +1,16 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+/**
+ * DTO for one user a bulk operation could not apply to
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkUserFailureDto {
+
+    private Long userId;
+    private String message;
+}
@@ -0,0 +1,18 @@
+package com.cotowork.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for logout request (optional body) - the refresh token to revoke with the access token
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogoutRequestDto {
+
+    private String refreshToken;
+}
@@ -0,0 +1,18 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One keyset page of user ids. nextAfterId is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserIdPageDto {
+    
+    private List<Long> ids;
+    private Long nextAfterId;
+}
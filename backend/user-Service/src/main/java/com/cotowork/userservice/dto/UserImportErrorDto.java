@@ -0,0 +1,17 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+/**
+ * DTO for one rejected row of a bulk user import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserImportErrorDto {
+
+    private Long line;        // 1-based line/record number in the uploaded file (header = line 1 for CSV)
+    private String username;
+    private String message;
+}
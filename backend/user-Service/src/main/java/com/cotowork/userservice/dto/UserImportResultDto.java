@@ -0,0 +1,22 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk user import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserImportResultDto {
+
+    private Integer totalRows;
+    private Integer createdUsers;
+    private Integer failedRows;
+    private List<UserImportErrorDto> errors;
+    private Boolean errorsTruncated; // true when more rows failed than are listed in errors
+    private Long durationMs;
+}
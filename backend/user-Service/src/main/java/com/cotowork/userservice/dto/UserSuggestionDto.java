@@ -0,0 +1,21 @@
+package com.cotowork.userservice.dto;
+
+import lombok.*;
+
+/**
+ * DTO for typeahead suggestions (assignment pickers) - only what the picker displays
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSuggestionDto {
+
+    private Long id;
+    private String username;
+    private String fullName;
+    private String email;
+    private Long unitId;
+    private Boolean isActive;
+    private String avatarUrl;
+}
@@ -5,8 +5,11 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import com.cotowork.userservice.event.UserChangeListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -29,6 +32,7 @@ import lombok.Setter;
     @Index(name = "idx_email", columnList = "email", unique = true),
     @Index(name = "idx_unit_id", columnList = "unit_id")
 })
+@EntityListeners(UserChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,30 @@
+package com.cotowork.userservice.event;
+
+import com.cotowork.userservice.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA callbacks on User turned into UserChangedEvent, so every save()/delete() through the
+ * repository is seen without each service publishing by hand. Bulk JPQL/JDBC writes bypass
+ * JPA callbacks and publish the event themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        if (user.getId() != null) {
+            eventPublisher.publishEvent(UserChangedEvent.of(user.getId()));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.cotowork.userservice.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One or more users were created, updated or deleted. Published inside the writing
+ * transaction; listeners use @TransactionalEventListener to react after commit.
+ */
+public record UserChangedEvent(List<Long> userIds) {
+
+    public UserChangedEvent {
+        userIds = List.copyOf(userIds);
+    }
+
+    public static UserChangedEvent of(Long userId) {
+        return new UserChangedEvent(List.of(userId));
+    }
+
+    public static UserChangedEvent of(Collection<Long> userIds) {
+        return new UserChangedEvent(List.copyOf(userIds));
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +17,13 @@ public interface UnitRepository extends JpaRepository<Unit, Long> {
     
     boolean existsByUnitCode(String unitCode);
     
+    /** (unitCode, id) pairs for the given codes, without loading Unit */
+    @Query("SELECT u.unitCode, u.id FROM Unit u WHERE u.unitCode IN :codes")
+    List<Object[]> findIdsByUnitCodeIn(@Param("codes") Collection<String> codes);
+    
+    @Query("SELECT u.id FROM Unit u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
     List<Unit> findByParentUnitId(Long parentUnitId);
     
     List<Unit> findByIsActive(Boolean isActive);
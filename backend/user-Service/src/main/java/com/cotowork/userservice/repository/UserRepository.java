@@ -2,20 +2,72 @@ package com.cotowork.userservice.repository;
 
 import com.cotowork.userservice.entity.User;
 import com.cotowork.userservice.entity.UserRole;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
        List<User> findByIsActiveTrue();
+
+    /*
+     * List queries whose results go through UserMapper (which reads user.unit) load the unit
+     * in the same SELECT via @EntityGraph(attributePaths = "unit") - a LEFT JOIN on the
+     * many-to-one, so paging stays in SQL. Without it each distinct unit costs one more query.
+     */
+
+    @EntityGraph(attributePaths = "unit")
+    @Query("SELECT u FROM User u")
+    List<User> findAllWithUnit();
+
+    @EntityGraph(attributePaths = "unit")
+    @Query("SELECT u FROM User u WHERE u.id IN :ids")
+    List<User> findWithUnitByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset page of active user ids (id > afterId), ids only - no entity hydration.
+     * Use PageRequest.of(0, limit) to bound the page size.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /** (id, username) pairs without hydrating User - for bulk jobs that only need the login name */
+    @Query("SELECT u.id, u.username FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    long countByIdIn(Collection<Long> ids);
+
+    /** (username, email) of existing users clashing with either list - one query per import batch */
+    @Query("SELECT u.username, u.email FROM User u WHERE u.username IN :usernames OR u.email IN :emails")
+    List<Object[]> findExistingUsernamesAndEmails(@Param("usernames") Collection<String> usernames,
+                                                  @Param("emails") Collection<String> emails);
+
+    // Set-based bulk writes - no entity is loaded; callers pass bounded id chunks
+    @Modifying
+    @Query("UPDATE User u SET u.isActive = :isActive, u.updatedAt = CURRENT_TIMESTAMP WHERE u.id IN :ids")
+    int updateIsActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("isActive") Boolean isActive);
+
+    @Modifying
+    @Query("UPDATE User u SET u.role = :role, u.updatedAt = CURRENT_TIMESTAMP WHERE u.id IN :ids")
+    int updateRoleByIdIn(@Param("ids") Collection<Long> ids, @Param("role") UserRole role);
+
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
     
     Optional<User> findByUsername(String username);
     
@@ -28,6 +80,35 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.unit.id = :unitId")
     List<User> findByUnitId(@Param("unitId") Long unitId);
     
+    /** Paged unit members, served by idx_unit_id */
+    @EntityGraph(attributePaths = "unit")
+    @Query(value = "SELECT u FROM User u WHERE u.unit.id = :unitId",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.unit.id = :unitId")
+    Page<User> findByUnitId(@Param("unitId") Long unitId, Pageable pageable);
+    
+    /**
+     * Case-insensitive substring search on username, full name and email, ids only
+     * (native SQL cannot take an entity graph; load the page with findWithUnitByIdIn).
+     * pattern is an ILIKE pattern ('%kw%', with %, _ and \ in kw escaped by the caller);
+     * the pg_trgm GIN indexes from db/init-user-db.sql serve it for keywords of 3+ characters.
+     */
+    @Query(value = """
+            SELECT u.id FROM users u
+            WHERE u.username ILIKE :pattern ESCAPE '\\'
+               OR u.full_name ILIKE :pattern ESCAPE '\\'
+               OR u.email ILIKE :pattern ESCAPE '\\'
+            ORDER BY u.full_name, u.id
+            """,
+           countQuery = """
+            SELECT COUNT(*) FROM users u
+            WHERE u.username ILIKE :pattern ESCAPE '\\'
+               OR u.full_name ILIKE :pattern ESCAPE '\\'
+               OR u.email ILIKE :pattern ESCAPE '\\'
+            """,
+           nativeQuery = true)
+    Page<Long> searchIdsByPattern(@Param("pattern") String pattern, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "unit")
     List<User> findByRole(UserRole role);
     
     List<User> findByIsActive(Boolean isActive);
@@ -39,6 +120,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> searchUsers(@Param("keyword") String keyword);
     
     // Authentication-specific methods
+    @EntityGraph(attributePaths = "unit")
     Optional<User> findByUsernameAndIsActiveTrue(String username);
     
     Optional<User> findByIdAndIsActiveTrue(Long id);
@@ -46,6 +128,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByIdAndIsActiveTrue(Long id);
     
     // Admin-specific methods for filtering and pagination
+    @EntityGraph(attributePaths = "unit")
     @Query("SELECT u FROM User u WHERE " +
            "(:role IS NULL OR u.role = :role) AND " +
            "(:unitId IS NULL OR u.unit.id = :unitId) AND " +
@@ -55,6 +138,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
                             @Param("isActive") Boolean isActive, 
                             Pageable pageable);
     
+    @EntityGraph(attributePaths = "unit")
     @Query("SELECT u FROM User u WHERE " +
            "(:role IS NULL OR u.role = :role) AND " +
            "(:unitId IS NULL OR u.unit.id = :unitId) AND " +
@@ -66,14 +150,48 @@ public interface UserRepository extends JpaRepository<User, Long> {
                                       @Param("search") String search, 
                                       Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE " +
+    /**
+     * Export rows as a cursor: scalar columns only (no entities piling up in the persistence
+     * context), fetched from the server fetch-size rows at a time. Must be consumed inside a
+     * read-only transaction and closed by the caller.
+     * Columns: id, username, fullName, email, role, unitId, phoneNumber, isActive, createdAt
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT u.id, u.username, u.fullName, u.email, u.role, u.unit.id, u.phoneNumber, u.isActive, u.createdAt " +
+           "FROM User u WHERE " +
            "(:role IS NULL OR u.role = :role) AND " +
            "(:unitId IS NULL OR u.unit.id = :unitId) AND " +
-           "(:isActive IS NULL OR u.isActive = :isActive)")
-    List<User> findByFiltersForExport(@Param("role") UserRole role, 
-                                     @Param("unitId") Long unitId, 
+           "(:isActive IS NULL OR u.isActive = :isActive) " +
+           "ORDER BY u.id")
+    Stream<Object[]> streamForExport(@Param("role") UserRole role,
+                                     @Param("unitId") Long unitId,
                                      @Param("isActive") Boolean isActive);
     
+    /**
+     * Rows for the in-memory typeahead index (UserSuggestIndex), scalar columns only.
+     * Columns: id, username, fullName, email, unitId, isActive, avatarUrl
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id, u.username, u.fullName, u.email, u.unit.id, u.isActive, u.avatarUrl FROM User u")
+    Stream<Object[]> streamSuggestRows();
+
+    @Query("SELECT u.id, u.username, u.fullName, u.email, u.unit.id, u.isActive, u.avatarUrl FROM User u WHERE u.id IN :ids")
+    List<Object[]> findSuggestRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id, u.username, u.fullName, u.email, u.unit.id, u.isActive, u.avatarUrl FROM User u WHERE u.updatedAt > :since")
+    List<Object[]> findSuggestRowsUpdatedSince(@Param("since") LocalDateTime since);
+
+    /** Every user id (UserSuggestIndex reconcile, to find deleted users) */
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+    
     // Statistics methods
     long countByIsActive(Boolean isActive);
     
@@ -83,8 +201,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u.unit.id, COUNT(u) FROM User u GROUP BY u.unit.id")
     List<Object[]> findUserCountByUnit();
+
+    /**
+     * Every dashboard figure in one scan: grouping 3 = whole table, 1 = per role, 2 = per unit.
+     * Columns: grouping, role, unit_id, total, active, created since startOfMonth, created since startOfWeek
+     */
+    @Query(value = """
+            SELECT GROUPING(role, unit_id) AS grp, role, unit_id,
+                   COUNT(*) AS total,
+                   COUNT(*) FILTER (WHERE is_active) AS active,
+                   COUNT(*) FILTER (WHERE created_at >= :startOfMonth) AS created_month,
+                   COUNT(*) FILTER (WHERE created_at >= :startOfWeek) AS created_week
+            FROM users
+            GROUP BY GROUPING SETS ((), (role), (unit_id))
+            """, nativeQuery = true)
+    List<Object[]> aggregateUserStats(@Param("startOfMonth") LocalDateTime startOfMonth,
+                                      @Param("startOfWeek") LocalDateTime startOfWeek);
     
     // Inactive users (users who haven't been updated recently)
+    @EntityGraph(attributePaths = "unit")
     @Query("SELECT u FROM User u WHERE u.updatedAt < :cutoffDate AND u.isActive = true")
     List<User> findInactiveUsers(@Param("cutoffDate") LocalDateTime cutoffDate);
 }
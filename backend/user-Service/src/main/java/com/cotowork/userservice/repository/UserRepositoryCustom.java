@@ -0,0 +1,28 @@
+package com.cotowork.userservice.repository;
+
+import com.cotowork.userservice.entity.User;
+
+import java.util.List;
+
+/**
+ * Set-based writes on users that bypass entity loading (see UserRepositoryImpl).
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Set password_hash for many users with one UPDATE ... FROM unnest() per chunk.
+     * ids and passwordHashes are paired by position. Returns the number of rows updated.
+     */
+    int updatePasswordHashes(List<Long> ids, List<String> passwordHashes);
+
+    /**
+     * Take count ids from the users id sequence in one round-trip.
+     */
+    List<Long> reserveUserIds(int count);
+
+    /**
+     * Insert users whose id was taken from reserveUserIds() as one JDBC batch.
+     * Only unit.id is read from the unit reference.
+     */
+    void insertUsers(List<User> users);
+}
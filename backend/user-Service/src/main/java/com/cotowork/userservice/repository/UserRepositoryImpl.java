@@ -0,0 +1,83 @@
+package com.cotowork.userservice.repository;
+
+import com.cotowork.userservice.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC writes instead of saveAll(): saveAll() loads every entity and issues one UPDATE per row,
+ * while unnest() costs a single round-trip per chunk.
+ */
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String UPDATE_PASSWORD_SQL = """
+            UPDATE users u
+            SET password_hash = v.password_hash, updated_at = CURRENT_TIMESTAMP
+            FROM unnest(?::bigint[], ?::text[]) AS v(id, password_hash)
+            WHERE u.id = v.id
+            """;
+
+    private static final String RESERVE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (id, username, full_name, email, password_hash, unit_id, role,
+                               is_active, phone_number, avatar_url, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int updatePasswordHashes(List<Long> ids, List<String> passwordHashes) {
+        if (ids.size() != passwordHashes.size()) {
+            throw new IllegalArgumentException("ids and passwordHashes must have the same size");
+        }
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, ids.size());
+            List<Long> idChunk = ids.subList(from, to);
+            List<String> hashChunk = passwordHashes.subList(from, to);
+            updated += jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(UPDATE_PASSWORD_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", idChunk.toArray()));
+                ps.setArray(2, con.createArrayOf("text", hashChunk.toArray()));
+                return ps;
+            });
+        }
+        return updated;
+    }
+
+    @Override
+    public List<Long> reserveUserIds(int count) {
+        if (count <= 0) return List.of();
+        return jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, count);
+    }
+
+    @Override
+    public void insertUsers(List<User> users) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, users, CHUNK_SIZE, (ps, user) -> {
+            ps.setLong(1, user.getId());
+            ps.setString(2, user.getUsername());
+            ps.setString(3, user.getFullName());
+            ps.setString(4, user.getEmail());
+            ps.setString(5, user.getPasswordHash());
+            ps.setLong(6, user.getUnit().getId());
+            ps.setString(7, user.getRole().name());
+            ps.setBoolean(8, Boolean.TRUE.equals(user.getIsActive()));
+            ps.setString(9, user.getPhoneNumber());
+            ps.setString(10, user.getAvatarUrl());
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        });
+    }
+}
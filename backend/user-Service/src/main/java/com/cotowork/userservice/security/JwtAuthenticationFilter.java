@@ -15,7 +15,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * JWT Authentication Filter
@@ -45,7 +47,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Extract JWT token from Authorization header
         String authorizationHeader = request.getHeader("Authorization");
         String token = null;
-        String username = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             token = authorizationHeader.substring(7);
@@ -54,12 +55,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (token.contains("{{") || token.equals("null")) {
                 log.warn("SUSPICIOUS TOKEN DETECTED: Token looks like an unresolved Postman variable or null string. Token: {}", token);
             }
-            
-            try {
-                username = jwtUtil.extractUsername(token);
-            } catch (Exception e) {
-                log.warn("Error extracting username from JWT token: {}. Token part: {}", e.getMessage(), token.length() > 10 ? token.substring(0, 10) + "..." : token);
-            }
         } else {
             if (authorizationHeader == null) {
                 log.debug("No Authorization header found for request: {}", requestPath);
@@ -68,61 +63,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
-        // Validate token and set up security context
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateAccessToken(token)) {
-                try {
-                    // 1. Extract thông tin (An toàn với Null)
-                    Long userId = jwtUtil.extractUserId(token);
-                    String role = jwtUtil.extractRole(token);
-                    Long unitId = jwtUtil.extractUnitId(token);
-                    List<String> permissions = jwtUtil.extractPermissions(token);
-
-                    // 2. Xử lý trường hợp permissions bị null (Khởi tạo list rỗng để tránh lỗi)
-                    if (permissions == null) {
-                        permissions = new java.util.ArrayList<>();
-                    }
-
-                    // 3. Tạo danh sách Authorities (Dùng ArrayList để có thể sửa đổi/add thêm sau này)
-                    List<SimpleGrantedAuthority> authorities = new java.util.ArrayList<>();
-
-                    // Add permissions vào authorities
-                    for (String permission : permissions) {
-                        authorities.add(new SimpleGrantedAuthority(permission));
-                    }
-
-                    // 4. Add Role (Kiểm tra null trước khi add)
-                    if (role != null && !role.isEmpty()) {
-                        authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
-                    }
-
-                    // 5. Tạo Authentication Token
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            username, null, authorities);
-
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // 6. Build User Details
-                    UserAuthenticationDetails userDetails = UserAuthenticationDetails.builder()
-                            .userId(userId)
-                            .username(username)
-                            .role(role)
-                            .unitId(unitId)
-                            .permissions(permissions)
-                            .build();
-
-                    request.setAttribute("userDetails", userDetails);
-
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    log.debug("JWT authentication successful for user: {}", username);
-
-                } catch (Exception e) {
-                    // Sửa log để hiện đầy đủ lỗi (stack trace) thay vì chỉ hiện "null"
-                    log.error("Error setting up security context for user {}: ", username, e);
+        // Validate token and set up security context (single parse: signature, expiry, type and claims)
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<VerifiedToken> verified = jwtUtil.verifyAccessToken(token);
+            if (verified.isPresent()) {
+                VerifiedToken claims = verified.get();
+
+                // Permissions + role become authorities
+                List<SimpleGrantedAuthority> authorities = new ArrayList<>(claims.permissions().size() + 1);
+                for (String permission : claims.permissions()) {
+                    authorities.add(new SimpleGrantedAuthority(permission));
+                }
+                if (claims.role() != null && !claims.role().isEmpty()) {
+                    authorities.add(new SimpleGrantedAuthority("ROLE_" + claims.role()));
                 }
+
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        claims.username(), null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                request.setAttribute("userDetails", claims.toAuthenticationDetails());
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                log.debug("JWT authentication successful for user: {}", claims.username());
             } else {
-                log.warn("Invalid JWT token for user: {}", username);
+                log.warn("Invalid JWT token for request: {}", requestPath);
             }
         }
 
@@ -11,6 +11,8 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * JWT Utility class for token generation and validation
@@ -21,17 +23,23 @@ import java.util.List;
 public class JwtUtil {
 
     private final SecretKey secretKey;
+    private final JwtParser parser;
     private final long jwtExpirationMs;
     private final long refreshTokenExpirationMs;
+    private final TokenRevocationService revocationService;
 
     public JwtUtil(
             @Value("${app.jwt.secret:mySecretKey123456789012345678901234567890}") String jwtSecret,
             @Value("${app.jwt.expiration-ms:86400000}") long jwtExpirationMs, // 24 hours
-            @Value("${app.jwt.refresh-expiration-ms:604800000}") long refreshTokenExpirationMs // 7 days
+            @Value("${app.jwt.refresh-expiration-ms:604800000}") long refreshTokenExpirationMs, // 7 days
+            TokenRevocationService revocationService
     ) {
         this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        // Immutable and thread-safe: build once instead of per call
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
         this.jwtExpirationMs = jwtExpirationMs;
         this.refreshTokenExpirationMs = refreshTokenExpirationMs;
+        this.revocationService = revocationService;
     }
 
     /**
@@ -41,12 +49,13 @@ public class JwtUtil {
         Instant now = Instant.now();
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // jti - lets a single token be revoked
                 .subject(username)
                 .claim("userId", userId)
                 .claim("role", role)
                 .claim("unitId", unitId)
                 .claim("permissions", permissions)
-                .claim("type", "access")
+                .claim("type", VerifiedToken.TYPE_ACCESS)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plus(jwtExpirationMs, ChronoUnit.MILLIS)))
                 .signWith(secretKey, Jwts.SIG.HS256)
@@ -60,9 +69,10 @@ public class JwtUtil {
         Instant now = Instant.now();
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // jti - revoked on logout
                 .subject(username)
                 .claim("userId", userId)
-                .claim("type", "refresh")
+                .claim("type", VerifiedToken.TYPE_REFRESH)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plus(refreshTokenExpirationMs, ChronoUnit.MILLIS)))
                 .signWith(secretKey, Jwts.SIG.HS256)
@@ -70,120 +80,58 @@ public class JwtUtil {
     }
 
     /**
-     * Extract username from JWT token
+     * Parse the token once: verifies signature and expiry and returns all claims.
+     * Returns empty if the token is malformed, tampered with or expired.
      */
-    public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    /**
-     * Extract user ID from JWT token
-     */
-    public Long extractUserId(String token) {
-        return extractClaims(token).get("userId", Long.class);
-    }
-
-    /**
-     * Extract role from JWT token
-     */
-    public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
-    }
-
-    /**
-     * Extract unit ID from JWT token
-     */
-    public Long extractUnitId(String token) {
-        return extractClaims(token).get("unitId", Long.class);
-    }
-
-    /**
-     * Extract permissions from JWT token
-     */
-    @SuppressWarnings("unchecked")
-    public List<String> extractPermissions(String token) {
-        return extractClaims(token).get("permissions", List.class);
-    }
-
-    /**
-     * Extract token type from JWT token
-     */
-    public String extractTokenType(String token) {
-        return extractClaims(token).get("type", String.class);
-    }
-
-    /**
-     * Extract expiration date from JWT token
-     */
-    public Date extractExpiration(String token) {
-        return extractClaims(token).getExpiration();
-    }
-
-    /**
-     * Check if token is expired
-     */
-    public boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (JwtException e) {
-            log.warn("Error checking token expiration: {}", e.getMessage());
-            return true;
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
         }
-    }
-
-    /**
-     * Validate JWT token
-     */
-    public boolean validateToken(String token) {
         try {
-            extractClaims(token);
-            return !isTokenExpired(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null) {
+                log.warn("Invalid JWT token: missing expiration");
+                return Optional.empty();
+            }
+            return Optional.of(toVerifiedToken(claims));
+        } catch (ExpiredJwtException e) {
+            log.warn("JWT token expired: {}", e.getMessage());
+            return Optional.empty();
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
     /**
-     * Validate access token specifically
+     * Verify an access token (signature, expiry, type and revocation) with a single parse
      */
-    public boolean validateAccessToken(String token) {
-        try {
-            if (!validateToken(token)) {
-                return false;
-            }
-            String tokenType = extractTokenType(token);
-            return "access".equals(tokenType);
-        } catch (Exception e) {
-            log.warn("Error validating access token: {}", e.getMessage());
-            return false;
-        }
+    public Optional<VerifiedToken> verifyAccessToken(String token) {
+        return verify(token)
+                .filter(VerifiedToken::isAccessToken)
+                .filter(t -> !revocationService.isRevoked(t));
     }
 
     /**
-     * Validate refresh token specifically
+     * Verify a refresh token (signature, expiry, type and revocation) with a single parse
      */
-    public boolean validateRefreshToken(String token) {
-        try {
-            if (!validateToken(token)) {
-                return false;
-            }
-            String tokenType = extractTokenType(token);
-            return "refresh".equals(tokenType);
-        } catch (Exception e) {
-            log.warn("Error validating refresh token: {}", e.getMessage());
-            return false;
-        }
+    public Optional<VerifiedToken> verifyRefreshToken(String token) {
+        return verify(token)
+                .filter(VerifiedToken::isRefreshToken)
+                .filter(t -> !revocationService.isRevoked(t));
     }
 
-    /**
-     * Extract all claims from JWT token
-     */
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    @SuppressWarnings("unchecked")
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.get("unitId", Long.class),
+                claims.get("permissions", List.class),
+                claims.get("type", String.class),
+                claims.getId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.cotowork.userservice.security;
+
+import com.cotowork.userservice.entity.RevokedToken;
+import com.cotowork.userservice.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Token revocation (logout, account deactivation) for access and refresh tokens.
+ *
+ * <ul>
+ *   <li>revoked_tokens is the persistent source of truth: one row per revoked jti, or one
+ *       "user:{id}" cut-off that rejects every token of that user issued before it.</li>
+ *   <li>A Bloom filter of live revocation keys answers the common case ("not revoked")
+ *       in memory; only Bloom hits are confirmed against the table.</li>
+ *   <li>Each revocation is also written to Redis as "revoked:{key}" with a TTL equal to the
+ *       remaining token lifetime and announced on {@value #CHANNEL}. Other user-service
+ *       instances and task-service add it to their own filters.</li>
+ *   <li>Rows and keys expire with the tokens they cover; the filter is rebuilt periodically
+ *       from live rows so it does not fill up.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+
+    public static final String CHANNEL = "token-revocations";
+    public static final String REDIS_KEY_PREFIX = "revoked:";
+
+    private final RevokedTokenRepository repository;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate txTemplate;
+    private final long cutoffTtlMs;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile TokenBloomFilter bloom;
+    // Keys added since the current rebuild started, re-applied to the new filter after the swap
+    private final Queue<String> addedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private final Counter negatives;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+
+    public TokenRevocationService(RevokedTokenRepository repository,
+                                  StringRedisTemplate redisTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.jwt.expiration-ms:86400000}") long accessTokenTtlMs,
+                                  @Value("${app.jwt.refresh-expiration-ms:604800000}") long refreshTokenTtlMs,
+                                  @Value("${app.token-revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${app.token-revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.repository = repository;
+        this.redisTemplate = redisTemplate;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        // A user cut-off must outlive every token it covers, refresh tokens included
+        this.cutoffTtlMs = Math.max(accessTokenTtlMs, refreshTokenTtlMs);
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloom = new TokenBloomFilter(expectedEntries, falsePositiveRate);
+        this.negatives = meterRegistry.counter("token.revocation.check", "result", "bloom_negative");
+        this.confirmed = meterRegistry.counter("token.revocation.check", "result", "revoked");
+        this.falsePositives = meterRegistry.counter("token.revocation.check", "result", "false_positive");
+    }
+
+    public static String tokenKey(String jti) {
+        return "jti:" + jti;
+    }
+
+    public static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    // ============================================================
+    // CHECK
+    // ============================================================
+
+    public boolean isRevoked(VerifiedToken token) {
+        TokenBloomFilter filter = bloom;
+        boolean tokenHit = token.tokenId() != null && filter.mightContain(tokenKey(token.tokenId()));
+        boolean userHit = token.userId() != null && filter.mightContain(userKey(token.userId()));
+        if (!tokenHit && !userHit) {
+            negatives.increment();
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean revoked = (tokenHit && repository.findById(tokenKey(token.tokenId()))
+                        .filter(r -> r.getExpiresAt().isAfter(now))
+                        .isPresent())
+                || (userHit && repository.findById(userKey(token.userId()))
+                        .filter(r -> r.getExpiresAt().isAfter(now))
+                        .filter(r -> issuedBefore(token, r.getRevokedAt()))
+                        .isPresent());
+        (revoked ? confirmed : falsePositives).increment();
+        return revoked;
+    }
+
+    // ============================================================
+    // REVOKE
+    // ============================================================
+
+    /**
+     * Revoke a single access or refresh token until it expires (logout)
+     */
+    @Transactional
+    public void revokeToken(VerifiedToken token) {
+        if (token.tokenId() == null) {
+            log.warn("Token of user {} has no jti and cannot be revoked individually", token.userId());
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault());
+        save(RevokedToken.builder()
+                .key(tokenKey(token.tokenId()))
+                .userId(token.userId())
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    /**
+     * Reject every token issued to these users so far (deactivation, deletion).
+     * The cut-off lives as long as the longest token that could predate it.
+     */
+    @Transactional
+    public void revokeAllForUsers(Collection<Long> userIds) {
+        // JWT iat has second precision: truncate so a token issued in the same second is also cut off
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        LocalDateTime expiresAt = revokedAt.plus(Duration.ofMillis(cutoffTtlMs));
+        for (Long userId : userIds) {
+            save(RevokedToken.builder()
+                    .key(userKey(userId))
+                    .userId(userId)
+                    .revokedAt(revokedAt)
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+    }
+
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        revokeAllForUsers(List.of(userId));
+    }
+
+    // ============================================================
+    // REPLICATION + REBUILD
+    // ============================================================
+
+    /**
+     * Revocation announced by another instance
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Purge expired rows and rebuild the filter from the live ones.
+     * Live keys are re-published to Redis so consumers can recover after a Redis restart.
+     */
+    @Scheduled(fixedDelayString = "${app.token-revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.token-revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        addedDuringRebuild.clear();
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> live;
+        try {
+            live = txTemplate.execute(status -> {
+                int purged = repository.deleteExpired(now);
+                if (purged > 0) log.info("Purged {} expired token revocations", purged);
+                return repository.findLive(now);
+            });
+        } catch (Exception e) {
+            log.error("Token revocation rebuild failed, keeping current filter: {}", e.getMessage());
+            return;
+        }
+
+        TokenBloomFilter next = new TokenBloomFilter(Math.max(expectedEntries, live.size() * 2), falsePositiveRate);
+        live.forEach(r -> next.put(r.getKey()));
+        bloom = next;
+        addedDuringRebuild.forEach(next::put);
+
+        int unsynced = 0;
+        for (RevokedToken r : live) {
+            if (!writeRedisKey(r)) unsynced++;
+        }
+        log.debug("Token revocation filter rebuilt with {} live entries ({} not synced to Redis)",
+                live.size(), unsynced);
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    private void save(RevokedToken revocation) {
+        repository.save(revocation);
+        add(revocation.getKey());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(revocation);
+                }
+            });
+        } else {
+            publish(revocation);
+        }
+    }
+
+    private void add(String key) {
+        bloom.put(key);
+        addedDuringRebuild.add(key);
+    }
+
+    private void publish(RevokedToken revocation) {
+        if (writeRedisKey(revocation)) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, revocation.getKey());
+            } catch (Exception e) {
+                log.warn("Failed to announce revocation {}: {}", revocation.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /** Value = revokedAt (epoch seconds), TTL = remaining lifetime */
+    private boolean writeRedisKey(RevokedToken revocation) {
+        Duration ttl = Duration.between(LocalDateTime.now(), revocation.getExpiresAt());
+        if (ttl.isNegative() || ttl.isZero()) return true;
+        try {
+            long revokedAtEpoch = revocation.getRevokedAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + revocation.getKey(), String.valueOf(revokedAtEpoch), ttl);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to replicate revocation {} to Redis: {}", revocation.getKey(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean issuedBefore(VerifiedToken token, LocalDateTime revokedAt) {
+        if (token.issuedAt() == null) return true;
+        Instant cutoff = revokedAt.atZone(ZoneId.systemDefault()).toInstant();
+        return token.issuedAt().isBefore(cutoff);
+    }
+}
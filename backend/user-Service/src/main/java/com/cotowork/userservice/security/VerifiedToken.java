@@ -0,0 +1,46 @@
+package com.cotowork.userservice.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature and expiry have been verified.
+ * Produced once per token by {@link JwtUtil#verify(String)} and passed around instead of the raw token.
+ */
+public record VerifiedToken(
+        String username,
+        Long userId,
+        String role,
+        Long unitId,
+        List<String> permissions,
+        String tokenType,
+        String tokenId,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    public VerifiedToken {
+        permissions = permissions != null ? List.copyOf(permissions) : List.of();
+    }
+
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(tokenType);
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(tokenType);
+    }
+
+    public UserAuthenticationDetails toAuthenticationDetails() {
+        return UserAuthenticationDetails.builder()
+                .userId(userId)
+                .username(username)
+                .role(role)
+                .unitId(unitId)
+                .permissions(permissions)
+                .build();
+    }
+}
@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +20,7 @@ import com.cotowork.userservice.mapper.UserMapper;
 import com.cotowork.userservice.repository.UserRepository;
 import com.cotowork.userservice.security.RolePermissionService;
 import com.cotowork.userservice.security.SecurityUtils;
+import com.cotowork.userservice.security.TokenRevocationService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,8 +37,10 @@ public class AccountService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final RolePermissionService rolePermissionService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
 
     // --- HÀM PHỤ TRỢ (Dùng chung cho cả class để tránh lặp code) ---
     private User getUserOrThrow() {
@@ -98,22 +100,25 @@ public class AccountService {
         User user = getUserOrThrow();
         log.info("Changing password for current user: {}", user.getUsername());
 
-        // Verify old password
-        if (!passwordEncoder.matches(dto.getOldPassword(), user.getPasswordHash())) {
-            throw new ValidationException(ErrorCode.INVALID_PASSWORD);
-        }
-
-        // Ensure new password is different
-        if (passwordEncoder.matches(dto.getNewPassword(), user.getPasswordHash())) {
-            throw new ValidationException(ErrorCode.PASSWORD_MUST_BE_DIFFERENT);
-        }
-
-        // Validate confirm password
+        // Validate confirm password (cheap check first, before any hashing)
         if (!dto.getNewPassword().equals(dto.getConfirmPassword())) {
             throw new ValidationException(ErrorCode.VALIDATION_FAILED, "New password and confirm password do not match");
         }
 
-        user.setPasswordHash(passwordEncoder.encode(dto.getNewPassword()));
+        // Two matches + one encode run as a single task on the hashing pool
+        String newHash = passwordHashingService.execute("change", encoder -> {
+            // Verify old password
+            if (!encoder.matches(dto.getOldPassword(), user.getPasswordHash())) {
+                throw new ValidationException(ErrorCode.INVALID_PASSWORD);
+            }
+            // Ensure new password is different
+            if (encoder.matches(dto.getNewPassword(), user.getPasswordHash())) {
+                throw new ValidationException(ErrorCode.PASSWORD_MUST_BE_DIFFERENT);
+            }
+            return encoder.encode(dto.getNewPassword());
+        });
+
+        user.setPasswordHash(newHash);
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
@@ -187,6 +192,8 @@ public class AccountService {
         user.setUpdatedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        userStatusCache.invalidate(user.getId());
+        tokenRevocationService.revokeAllForUser(user.getId());
         log.info("Account deactivated successfully for user: {}", user.getUsername());
     }
 
@@ -3,7 +3,6 @@ package com.cotowork.userservice.service;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 
-import org.springframework.security.crypto.password.PasswordEncoder; // Import Unit
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,7 +33,7 @@ public class AdminCreateUserService {
     private final UserRepository userRepository;
     private final UnitRepository unitRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     
     private static final String PASSWORD_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789!@#$%^&*";
     private static final SecureRandom random = new SecureRandom();
@@ -67,7 +66,7 @@ public class AdminCreateUserService {
                 .username(dto.getUsername())
                 .fullName(dto.getFullName())
                 .email(dto.getEmail())
-                .passwordHash(passwordEncoder.encode(dto.getPassword()))
+                .passwordHash(passwordHashingService.encode(dto.getPassword()))
                 .unit(unit) // Sửa lỗi: Dùng unit() thay vì unitId()
                 .role(dto.getRole())
                 .phoneNumber(dto.getPhoneNumber())
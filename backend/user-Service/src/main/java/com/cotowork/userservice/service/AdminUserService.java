@@ -11,21 +11,28 @@ import com.cotowork.userservice.mapper.UserMapper;
 import com.cotowork.userservice.repository.UnitRepository;
 import com.cotowork.userservice.repository.UserRepository;
 import com.cotowork.userservice.security.RolePermissionService;
+import com.cotowork.userservice.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Admin User Management Service
@@ -40,11 +47,13 @@ public class AdminUserService {
     private final UserRepository userRepository;
     private final UnitRepository unitRepository; // Thêm UnitRepository để xử lý logic Unit
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final BulkPasswordResetService bulkPasswordResetService;
+    private final BulkUserOperationService bulkUserOperationService;
+    private final UserStatsService userStatsService;
     private final RolePermissionService rolePermissionService;
-    
-    private static final String TEMP_PASSWORD_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789";
-    private static final SecureRandom random = new SecureRandom();
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Create user with admin privileges
@@ -70,7 +79,7 @@ public class AdminUserService {
                 .username(dto.getUsername())
                 .fullName(dto.getFullName())
                 .email(dto.getEmail())
-                .passwordHash(passwordEncoder.encode(dto.getPassword()))
+                .passwordHash(passwordHashingService.encode(dto.getPassword()))
                 .unit(unit) // Sửa: Set Object Unit thay vì ID
                 .role(dto.getRole())
                 .phoneNumber(dto.getPhoneNumber())
@@ -140,6 +149,8 @@ public class AdminUserService {
         user.setUpdatedAt(LocalDateTime.now());
         
         User savedUser = userRepository.save(user);
+        if (dto.getIsActive() != null) userStatusCache.invalidate(id);
+        if (Boolean.FALSE.equals(dto.getIsActive())) tokenRevocationService.revokeAllForUser(id);
         log.info("User updated successfully: {}", savedUser.getId());
         
         return userMapper.toResponseDto(savedUser);
@@ -176,6 +187,7 @@ public class AdminUserService {
         user.setIsActive(true);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userStatusCache.invalidate(id);
         
         log.info("User activated successfully: {}", id);
     }
@@ -192,6 +204,8 @@ public class AdminUserService {
         user.setIsActive(false);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userStatusCache.invalidate(id);
+        tokenRevocationService.revokeAllForUser(id);
         
         log.info("User deactivated successfully: {}", id);
     }
@@ -205,8 +219,8 @@ public class AdminUserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND));
         
-        String tempPassword = generateTempPassword();
-        user.setPasswordHash(passwordEncoder.encode(tempPassword));
+        String tempPassword = bulkPasswordResetService.generateTempPassword();
+        user.setPasswordHash(passwordHashingService.encode(tempPassword));
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
         
@@ -253,120 +267,33 @@ public class AdminUserService {
     }
 
     /**
-     * Bulk user operations
+     * Bulk user operations (synchronous, set-based - see BulkUserOperationService).
+     * Runs outside the class-level transaction so each chunk commits on its own.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String bulkUserOperation(BulkUserOperationDto dto) {
         log.info("Performing bulk operation: {} on {} users", dto.getOperation(), dto.getUserIds().size());
         
-        List<User> users = userRepository.findAllById(dto.getUserIds());
-        if (users.size() != dto.getUserIds().size()) {
-            throw new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND);
-        }
-        
-        int successCount = 0;
-        
-        switch (dto.getOperation()) {
-            case "ACTIVATE":
-                for (User user : users) {
-                    user.setIsActive(true);
-                    user.setUpdatedAt(LocalDateTime.now());
-                    successCount++;
-                }
-                break;
-                
-            case "DEACTIVATE":
-                for (User user : users) {
-                    user.setIsActive(false);
-                    user.setUpdatedAt(LocalDateTime.now());
-                    successCount++;
-                }
-                break;
-                
-            case "CHANGE_ROLE":
-                if (dto.getNewRole() == null) {
-                    throw new IllegalArgumentException("New role is required for CHANGE_ROLE operation");
-                }
-                for (User user : users) {
-                    user.setRole(dto.getNewRole());
-                    user.setUpdatedAt(LocalDateTime.now());
-                    successCount++;
-                }
-                break;
-                
-            case "DELETE":
-                userRepository.deleteAll(users);
-                successCount = users.size();
-                break;
-                
-            case "RESET_PASSWORD":
-                for (User user : users) {
-                    String tempPassword = generateTempPassword();
-                    user.setPasswordHash(passwordEncoder.encode(tempPassword));
-                    user.setUpdatedAt(LocalDateTime.now());
-                    successCount++;
-                }
-                break;
-                
-            default:
-                throw new IllegalArgumentException("Invalid operation: " + dto.getOperation());
-        }
+        BulkUserOperationService.Result result = bulkUserOperationService.execute(dto, processed -> { });
         
-        if (!dto.getOperation().equals("DELETE")) {
-            userRepository.saveAll(users);
-        }
-        
-        String result = String.format("Bulk operation %s completed successfully for %d users", 
-                dto.getOperation(), successCount);
-        log.info(result);
-        return result;
+        String message = result.failedCount() == 0
+                ? String.format("Bulk operation %s completed successfully for %d users",
+                        dto.getOperation(), result.affected())
+                : String.format("Bulk operation %s completed for %d users, %d still referenced and not deleted: %s",
+                        dto.getOperation(), result.affected(), result.failedCount(),
+                        result.failures().stream().map(BulkUserFailureDto::getUserId).toList());
+        log.info(message);
+        return message;
     }
 
     /**
-     * Get user statistics
+     * Get user statistics (one aggregate query, cached snapshot - see UserStatsService).
+     * No transaction here: a caller waiting for the refresh should not hold a connection.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserStatsDto getUserStats() {
         log.info("Fetching user statistics");
-        
-        long totalUsers = userRepository.count();
-        long activeUsers = userRepository.countByIsActive(true);
-        long inactiveUsers = userRepository.countByIsActive(false);
-        
-        // Users by role
-        Map<String, Long> usersByRole = Arrays.stream(UserRole.values())
-                .collect(Collectors.toMap(
-                        Enum::name,
-                        role -> userRepository.countByRole(role)
-                ));
-        
-        // Users by unit
-        // Lấy dữ liệu dạng List<Object[]> từ Repository
-        List<Object[]> unitStats = userRepository.findUserCountByUnit();
-
-        // Chuyển đổi List<Object[]> thành Map<String, Long> thủ công
-        Map<String, Long> usersByUnit = unitStats.stream()
-                .collect(Collectors.toMap(
-                        // row[0] là unitId (Long), convert sang String. Nếu null thì để "Unknown"
-                        row -> row[0] != null ? row[0].toString() : "Unknown",
-                        // row[1] là count (Long)
-                        row -> (Long) row[1]
-                ));
-        // Users created this month/week
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime startOfWeek = LocalDateTime.now().minusDays(7);
-        
-        long usersCreatedThisMonth = userRepository.countByCreatedAtAfter(startOfMonth);
-        long usersCreatedThisWeek = userRepository.countByCreatedAtAfter(startOfWeek);
-        
-        return UserStatsDto.builder()
-                .totalUsers(totalUsers)
-                .activeUsers(activeUsers)
-                .inactiveUsers(inactiveUsers)
-                .usersByRole(usersByRole)
-                .usersByUnit(usersByUnit)
-                .usersCreatedThisMonth(usersCreatedThisMonth)
-                .usersCreatedThisWeek(usersCreatedThisWeek)
-                .build();
+        return userStatsService.getStats();
     }
 
     /**
@@ -407,40 +334,31 @@ public class AdminUserService {
     }
 
     /**
-     * Export users data
+     * Export users data as CSV, streamed straight to out (optionally gzip-compressed).
+     * The header is flushed before the query runs so the download starts immediately;
+     * rows come from a server-side cursor, so memory stays flat whatever the user count.
      */
     @Transactional(readOnly = true)
-    public String exportUsers(UserRole role, Long unitId, Boolean isActive) {
-        log.info("Exporting users data");
-        
-        List<User> users;
-        if (role != null || unitId != null || isActive != null) {
-            users = userRepository.findByFiltersForExport(role, unitId, isActive);
-        } else {
-            users = userRepository.findAll();
-        }
-        
-        StringBuilder csv = new StringBuilder();
-        csv.append("ID,Username,Full Name,Email,Role,Unit ID,Phone,Active,Created At\n");
-        
-        for (User user : users) {
-            // Sửa lỗi: Lấy Unit ID thông qua object Unit
-            Long currentUnitId = (user.getUnit() != null) ? user.getUnit().getId() : null;
-            
-            csv.append(String.format("%d,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                    user.getId(),
-                    user.getUsername(),
-                    user.getFullName(),
-                    user.getEmail(),
-                    user.getRole(),
-                    currentUnitId != null ? currentUnitId : "", // Fix here
-                    user.getPhoneNumber() != null ? user.getPhoneNumber() : "",
-                    user.getIsActive(),
-                    user.getCreatedAt()
-            ));
+    public void exportUsers(UserRole role, Long unitId, Boolean isActive, boolean gzip, OutputStream out) throws IOException {
+        log.info("Exporting users data (gzip: {})", gzip);
+        
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 8192, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8), 16 * 1024);
+        CsvRecordWriter.writeRow(writer, "ID", "Username", "Full Name", "Email", "Role", "Unit ID", "Phone", "Active", "Created At");
+        writer.flush();
+        
+        long count = 0;
+        try (Stream<Object[]> rows = userRepository.streamForExport(role, unitId, isActive)) {
+            Iterator<Object[]> it = rows.iterator();
+            while (it.hasNext()) {
+                // Full name, email and phone are user-controlled and the file is opened in Excel
+                CsvRecordWriter.writeSpreadsheetRow(writer, it.next());
+                count++;
+            }
         }
-        
-        return csv.toString();
+        writer.flush();
+        if (gzipOut != null) gzipOut.finish();
+        log.info("Exported {} users", count);
     }
 
     /**
@@ -460,15 +378,4 @@ public class AdminUserService {
                 "Current role: " + user.getRole()
         );
     }
-
-    /**
-     * Generate temporary password
-     */
-    private String generateTempPassword() {
-        StringBuilder password = new StringBuilder();
-        for (int i = 0; i < 12; i++) {
-            password.append(TEMP_PASSWORD_CHARS.charAt(random.nextInt(TEMP_PASSWORD_CHARS.length())));
-        }
-        return password.toString();
-    }
 }
\ No newline at end of file
@@ -6,14 +6,19 @@ import com.cotowork.userservice.exception.ErrorCode;
 import com.cotowork.userservice.repository.UserRepository;
 import com.cotowork.userservice.security.JwtUtil;
 import com.cotowork.userservice.security.RolePermissionService;
+import com.cotowork.userservice.security.TokenRevocationService;
+import com.cotowork.userservice.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -22,26 +27,35 @@ import java.util.List;
 public class AuthenticationService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
     private final RolePermissionService rolePermissionService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final PlatformTransactionManager transactionManager;
 
     /**
-     * Authenticate user and generate JWT tokens
+     * Authenticate user and generate JWT tokens.
+     * Runs without a transaction: the user (with its unit) is loaded in a short read-only
+     * transaction that ends before the BCrypt check, so no DB connection is held while it waits
+     * on the hashing pool. (A bare repository call would not do: derived queries have no
+     * transaction of their own, and the EntityManager would keep the connection until login returns.)
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LoginResponseDto login(LoginRequestDto loginRequest) {
         log.info("Attempting login for username: {}", loginRequest.getUsername());
         
         // Find user by username
-        User user = userRepository.findByUsernameAndIsActiveTrue(loginRequest.getUsername())
+        TransactionTemplate readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        User user = readTx.execute(status -> userRepository.findByUsernameAndIsActiveTrue(loginRequest.getUsername()))
                 .orElseThrow(() -> {
                     log.warn("Login failed - user not found: {}", loginRequest.getUsername());
                     return new BadCredentialsException(ErrorCode.INVALID_CREDENTIALS.getMessage());
                 });
 
         // Verify password
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPasswordHash())) {
+        if (!passwordHashingService.matches(loginRequest.getPassword(), user.getPasswordHash())) {
             log.warn("Login failed - invalid password for user: {}", loginRequest.getUsername());
             throw new BadCredentialsException(ErrorCode.INVALID_CREDENTIALS.getMessage());
         }
@@ -96,15 +110,15 @@ public class AuthenticationService {
         
         String refreshToken = refreshRequest.getRefreshToken();
         
-        // Validate refresh token
-        if (!jwtUtil.validateRefreshToken(refreshToken)) {
-            log.warn("Token refresh failed - invalid refresh token");
-            throw new BadCredentialsException(ErrorCode.TOKEN_INVALID.getMessage());
-        }
+        // Validate refresh token and read its claims in one parse
+        VerifiedToken claims = jwtUtil.verifyRefreshToken(refreshToken)
+                .orElseThrow(() -> {
+                    log.warn("Token refresh failed - invalid refresh token");
+                    return new BadCredentialsException(ErrorCode.TOKEN_INVALID.getMessage());
+                });
 
-        // Extract user information from refresh token
-        String username = jwtUtil.extractUsername(refreshToken);
-        Long userId = jwtUtil.extractUserId(refreshToken);
+        String username = claims.username();
+        Long userId = claims.userId();
 
         // Find user to get current information
         User user = userRepository.findById(userId)
@@ -161,20 +175,20 @@ public class AuthenticationService {
                 token = token.substring(7);
             }
 
-            if (!jwtUtil.validateAccessToken(token)) {
+            Optional<VerifiedToken> verified = jwtUtil.verifyAccessToken(token);
+            if (verified.isEmpty()) {
                 return TokenValidationResponseDto.invalid("Invalid or expired token");
             }
 
-            String username = jwtUtil.extractUsername(token);
-            Long userId = jwtUtil.extractUserId(token);
-            String role = jwtUtil.extractRole(token);
-            Long unitId = jwtUtil.extractUnitId(token);
-            List<String> permissions = jwtUtil.extractPermissions(token);
+            VerifiedToken claims = verified.get();
+            String username = claims.username();
+            Long userId = claims.userId();
+            String role = claims.role();
+            Long unitId = claims.unitId();
+            List<String> permissions = claims.permissions();
 
-            // Verify user exists and is active
-            // Sử dụng existsById thay vì existsByIdAndIsActiveTrue để tránh lỗi nếu chưa khai báo hàm
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null || !user.getIsActive()) {
+            // Verify user exists and is active (short-TTL cache, invalidated on status changes)
+            if (!userStatusCache.isActive(userId)) {
                  log.warn("Token validation failed - user not found or inactive: {}", userId);
                  return TokenValidationResponseDto.invalid("User not found or inactive");
             }
@@ -188,8 +202,26 @@ public class AuthenticationService {
         }
     }
 
-    public void logout(String token) {
+    /**
+     * Revoke the presented access token and refresh token until they expire.
+     * Either may be null; without the refresh token /refresh keeps minting access tokens.
+     */
+    @Transactional
+    public void logout(String token, String refreshToken) {
         log.info("Logout requested");
+        if (token != null) {
+            if (token.startsWith("Bearer ")) {
+                token = token.substring(7);
+            }
+            jwtUtil.verify(token)
+                    .filter(VerifiedToken::isAccessToken)
+                    .ifPresent(tokenRevocationService::revokeToken);
+        }
+        if (refreshToken != null) {
+            jwtUtil.verify(refreshToken)
+                    .filter(VerifiedToken::isRefreshToken)
+                    .ifPresent(tokenRevocationService::revokeToken);
+        }
     }
 
     public boolean testDatabaseConnection() {
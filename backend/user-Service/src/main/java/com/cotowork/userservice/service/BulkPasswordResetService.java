@@ -0,0 +1,161 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.exception.ResourceNotFoundException;
+import com.cotowork.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Resets passwords for many users at once.
+ *
+ * Work is done chunk by chunk: load (id, username) only in a short read-only transaction,
+ * generate temp passwords, hash the chunk in parallel (PasswordHashingService.encodeAll) with
+ * no transaction open, then write it with one set-based UPDATE in its own short transaction.
+ * No connection is held while BCrypt runs. Each committed chunk is handed to the caller
+ * straight away, so the CSV download starts after the first chunk instead of after the whole job.
+ */
+@Service
+@Slf4j
+public class BulkPasswordResetService {
+
+    private static final String TEMP_PASSWORD_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789";
+    private static final int TEMP_PASSWORD_LENGTH = 12;
+    private static final SecureRandom random = new SecureRandom();
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate txTemplate;
+    private final int chunkSize;
+
+    /** A temp password issued to one user; only ever returned to the admin who asked for it */
+    public record IssuedCredential(Long userId, String username, String tempPassword) {}
+
+    public BulkPasswordResetService(UserRepository userRepository,
+                                    PasswordHashingService passwordHashingService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.bulk.password-reset.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // ============================================================
+    // API
+    // ============================================================
+
+    /**
+     * Fail fast (before any response bytes are written) if an id does not exist.
+     * Returns the de-duplicated ids in request order.
+     */
+    public List<Long> requireExistingUsers(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        long found = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            found += userRepository.countByIdIn(chunk);
+        }
+        if (found != ids.size()) {
+            throw new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND);
+        }
+        return ids;
+    }
+
+    /**
+     * Reset every user in userIds, handing each committed chunk to sink.
+     * Returns the number of users whose password was changed.
+     */
+    public int resetPasswords(List<Long> userIds, Consumer<List<IssuedCredential>> sink) {
+        int total = 0;
+        for (List<Long> chunk : chunks(userIds)) {
+            List<IssuedCredential> issued = resetChunk(chunk);
+            if (issued.isEmpty()) continue;
+            total += issued.size();
+            sink.accept(issued);
+        }
+        log.info("Bulk password reset completed for {} users", total);
+        return total;
+    }
+
+    /** Reset and write "userId,username,tempPassword" rows to out as each chunk commits */
+    public void resetPasswordsAsCsv(List<Long> userIds, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CsvRecordWriter.writeRow(writer, "userId", "username", "tempPassword");
+        try {
+            resetPasswords(userIds, issued -> {
+                try {
+                    for (IssuedCredential c : issued) {
+                        CsvRecordWriter.writeRow(writer, c.userId(), c.username(), c.tempPassword());
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away: the chunks already committed keep their new passwords
+            log.warn("Bulk password reset download aborted: {}", e.getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    public String generateTempPassword() {
+        StringBuilder password = new StringBuilder();
+        for (int i = 0; i < TEMP_PASSWORD_LENGTH; i++) {
+            password.append(TEMP_PASSWORD_CHARS.charAt(random.nextInt(TEMP_PASSWORD_CHARS.length())));
+        }
+        return password.toString();
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    /** Read, hash and write one chunk; only the read and the UPDATE run inside a transaction */
+    private List<IssuedCredential> resetChunk(List<Long> chunk) {
+        List<Object[]> rows = readTx.execute(status -> userRepository.findUsernamesByIdIn(chunk));
+        if (rows == null || rows.isEmpty()) return List.of();
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> usernames = new ArrayList<>(rows.size());
+        List<String> tempPasswords = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            usernames.add((String) row[1]);
+            tempPasswords.add(generateTempPassword());
+        }
+
+        List<String> hashes = passwordHashingService.encodeAll(tempPasswords);
+        txTemplate.executeWithoutResult(status -> userRepository.updatePasswordHashes(ids, hashes));
+
+        List<IssuedCredential> issued = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            issued.add(new IssuedCredential(ids.get(i), usernames.get(i), tempPasswords.get(i)));
+        }
+        return issued;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+}
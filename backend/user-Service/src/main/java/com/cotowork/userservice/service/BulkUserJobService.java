@@ -0,0 +1,167 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.BulkJobStatusDto;
+import com.cotowork.userservice.dto.BulkUserFailureDto;
+import com.cotowork.userservice.dto.BulkUserOperationDto;
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.exception.ResourceNotFoundException;
+import com.cotowork.userservice.exception.ValidationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous job mode for very large bulk operations.
+ *
+ * Jobs run one at a time on a single worker thread (so two 100k-user jobs never compete
+ * for the same rows or connections) with a bounded queue; a full queue is rejected with 503.
+ * Status is kept in memory on the instance that accepted the job and dropped
+ * app.bulk.jobs.retention-ms after the job finishes.
+ */
+@Service
+@Slf4j
+public class BulkUserJobService {
+
+    public enum JobStatus { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final BulkUserOperationService bulkUserOperationService;
+    private final ThreadPoolExecutor executor;
+    private final long retentionMs;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String operation;
+        final int total;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger processed = new AtomicInteger();
+        volatile int affected;
+        volatile int failed;
+        volatile List<BulkUserFailureDto> failures = List.of();
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile String error;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+
+        Job(String operation, int total) {
+            this.operation = operation;
+            this.total = total;
+        }
+    }
+
+    public BulkUserJobService(BulkUserOperationService bulkUserOperationService,
+                              @Value("${app.bulk.jobs.queue-capacity:10}") int queueCapacity,
+                              @Value("${app.bulk.jobs.retention-ms:3600000}") long retentionMs) {
+        this.bulkUserOperationService = bulkUserOperationService;
+        this.retentionMs = retentionMs;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bulk-user-job");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ============================================================
+    // API
+    // ============================================================
+
+    public BulkJobStatusDto submit(BulkUserOperationDto dto) {
+        // Temp passwords of a background reset would be lost - use the CSV download instead
+        if ("RESET_PASSWORD".equals(dto.getOperation())) {
+            throw new ValidationException(ErrorCode.VALIDATION_FAILED,
+                    "RESET_PASSWORD is not supported as a job, use POST /api/admin/users/bulk/reset-password");
+        }
+        bulkUserOperationService.validate(dto);
+
+        BulkUserOperationDto request = BulkUserOperationDto.builder()
+                .userIds(List.copyOf(dto.getUserIds()))
+                .operation(dto.getOperation())
+                .newRole(dto.getNewRole())
+                .reason(dto.getReason())
+                .build();
+        Job job = new Job(request.getOperation(), request.getUserIds().size());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Too many bulk jobs queued, try again later");
+        }
+        log.info("Queued bulk job {}: {} on {} users", job.id, job.operation, job.total);
+        return toDto(job);
+    }
+
+    public BulkJobStatusDto getStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException(ErrorCode.RESOURCE_NOT_FOUND);
+        }
+        return toDto(job);
+    }
+
+    // ============================================================
+    // INTERNAL
+    // ============================================================
+
+    private void run(Job job, BulkUserOperationDto request) {
+        job.status = JobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        try {
+            BulkUserOperationService.Result result = bulkUserOperationService.execute(request, job.processed::set);
+            job.affected = result.affected();
+            job.failed = result.failedCount();
+            job.failures = result.failures();
+            job.status = JobStatus.COMPLETED;
+            log.info("Bulk job {} completed: {} users affected", job.id, result.affected());
+        } catch (Exception e) {
+            // Chunks committed before the failure stay applied; processedUsers tells how far it got
+            job.error = e.getMessage();
+            job.status = JobStatus.FAILED;
+            log.error("Bulk job {} failed after {} users: {}", job.id, job.processed.get(), e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.bulk.jobs.cleanup-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static BulkJobStatusDto toDto(Job job) {
+        int processed = job.processed.get();
+        return BulkJobStatusDto.builder()
+                .jobId(job.id)
+                .operation(job.operation)
+                .status(job.status.name())
+                .totalUsers(job.total)
+                .processedUsers(processed)
+                .affectedUsers(job.affected)
+                .failedUsers(job.failed)
+                .failures(job.failures)
+                .progressPercent(job.total == 0 ? 100 : (int) (processed * 100L / job.total))
+                .error(job.error)
+                .createdAt(job.createdAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .build();
+    }
+}
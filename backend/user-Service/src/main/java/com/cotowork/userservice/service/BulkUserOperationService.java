@@ -0,0 +1,177 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.BulkUserFailureDto;
+import com.cotowork.userservice.dto.BulkUserOperationDto;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.event.UserChangedEvent;
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.exception.ValidationException;
+import com.cotowork.userservice.repository.UserRepository;
+import com.cotowork.userservice.security.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Set-based execution of bulk user operations.
+ *
+ * Ids are processed in chunks of app.bulk.chunk-size; each chunk is one
+ * UPDATE/DELETE ... WHERE id IN (...) plus its cache invalidation and token revocation,
+ * committed in its own transaction. No User entity is loaded, so 100k ids cost
+ * ~100 statements instead of 100k row-by-row writes, and no transaction stays open
+ * for the whole run.
+ *
+ * A set-based DELETE fails as a whole if one row is still referenced; that chunk is then
+ * retried one id per transaction so only the referenced users are skipped and reported.
+ *
+ * The operation is not all-or-nothing: if a chunk fails, the chunks committed before it stay
+ * applied and the BusinessException carries how many users were already processed.
+ */
+@Service
+@Slf4j
+public class BulkUserOperationService {
+
+    private final UserRepository userRepository;
+    private final BulkPasswordResetService bulkPasswordResetService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate txTemplate;
+    private final int chunkSize;
+    private final int maxReportedFailures;
+
+    /**
+     * affected = rows actually changed (ids deleted concurrently are processed but not affected);
+     * failures lists at most app.bulk.import.max-reported-errors of the failedCount skipped users
+     */
+    public record Result(int processed, int affected, int failedCount, List<BulkUserFailureDto> failures) {}
+
+    public BulkUserOperationService(UserRepository userRepository,
+                                    BulkPasswordResetService bulkPasswordResetService,
+                                    UserStatusCache userStatusCache,
+                                    TokenRevocationService tokenRevocationService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.bulk.chunk-size:1000}") int chunkSize,
+                                    @Value("${app.bulk.import.max-reported-errors:1000}") int maxReportedFailures) {
+        this.userRepository = userRepository;
+        this.bulkPasswordResetService = bulkPasswordResetService;
+        this.userStatusCache = userStatusCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.eventPublisher = eventPublisher;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /** Reject bad input before anything runs (or before a job is queued) */
+    public void validate(BulkUserOperationDto dto) {
+        if ("CHANGE_ROLE".equals(dto.getOperation()) && dto.getNewRole() == null) {
+            throw new ValidationException(ErrorCode.VALIDATION_FAILED, "New role is required for CHANGE_ROLE operation");
+        }
+    }
+
+    /**
+     * Run the operation. All ids must exist, otherwise nothing is changed.
+     * Each chunk commits on its own: a failing chunk stops the run with a BusinessException whose
+     * processedCount detail tells how many users were already changed (those are not rolled back).
+     * progress receives the number of ids processed so far after each committed chunk.
+     */
+    public Result execute(BulkUserOperationDto dto, IntConsumer progress) {
+        validate(dto);
+        List<Long> ids = bulkPasswordResetService.requireExistingUsers(dto.getUserIds());
+        String operation = dto.getOperation();
+
+        if ("RESET_PASSWORD".equals(operation)) {
+            int[] done = new int[1];
+            int reset = bulkPasswordResetService.resetPasswords(ids, issued -> progress.accept(done[0] += issued.size()));
+            return new Result(ids.size(), reset, 0, List.of());
+        }
+
+        int processed = 0;
+        int affected = 0;
+        int[] failedCount = new int[1];
+        List<BulkUserFailureDto> failures = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            Integer changed;
+            try {
+                changed = txTemplate.execute(status -> applyChunk(operation, dto.getNewRole(), chunk));
+            } catch (DataIntegrityViolationException e) {
+                if (!"DELETE".equals(operation)) throw partiallyApplied(operation, processed, ids.size(), e);
+                log.warn("Bulk DELETE chunk of {} users hit a constraint, retrying one by one", chunk.size());
+                changed = deleteOneByOne(chunk, failure -> {
+                    if (failures.size() < maxReportedFailures) failures.add(failure);
+                    failedCount[0]++;
+                });
+            } catch (ValidationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw partiallyApplied(operation, processed, ids.size(), e);
+            }
+            affected += changed != null ? changed : 0;
+            processed += chunk.size();
+            progress.accept(processed);
+        }
+        log.info("Bulk operation {} affected {}/{} users ({} failed)", operation, affected, ids.size(), failedCount[0]);
+        return new Result(processed, affected, failedCount[0], failures);
+    }
+
+    private static BusinessException partiallyApplied(String operation, int processed, int total, RuntimeException cause) {
+        log.error("Bulk operation {} failed after {}/{} users were applied", operation, processed, total, cause);
+        ErrorCode code = cause instanceof DataIntegrityViolationException
+                ? ErrorCode.DATA_INTEGRITY_VIOLATION
+                : ErrorCode.INTERNAL_SERVER_ERROR;
+        return new BusinessException(code,
+                String.format("Bulk operation %s failed after %d of %d users were applied", operation, processed, total),
+                cause, Map.of("processedCount", processed, "totalCount", total));
+    }
+
+    /** Row-by-row fallback: each id in its own transaction, referenced users are reported */
+    private int deleteOneByOne(List<Long> chunk, Consumer<BulkUserFailureDto> onFailure) {
+        int deleted = 0;
+        for (Long id : chunk) {
+            try {
+                Integer changed = txTemplate.execute(status -> applyChunk("DELETE", null, List.of(id)));
+                deleted += changed != null ? changed : 0;
+            } catch (DataIntegrityViolationException e) {
+                onFailure.accept(BulkUserFailureDto.builder()
+                        .userId(id)
+                        .message("User is still referenced by other records")
+                        .build());
+            }
+        }
+        return deleted;
+    }
+
+    private int applyChunk(String operation, UserRole newRole, List<Long> chunk) {
+        int changed = switch (operation) {
+            case "ACTIVATE" -> userRepository.updateIsActiveByIdIn(chunk, true);
+            case "DEACTIVATE" -> userRepository.updateIsActiveByIdIn(chunk, false);
+            case "CHANGE_ROLE" -> userRepository.updateRoleByIdIn(chunk, newRole);
+            case "DELETE" -> userRepository.deleteByIdIn(chunk);
+            default -> throw new ValidationException(ErrorCode.VALIDATION_FAILED, "Invalid operation: " + operation);
+        };
+        // Same transaction → invalidations/revocations are published only after the chunk commits
+        if (List.of("ACTIVATE", "DEACTIVATE", "DELETE").contains(operation)) {
+            userStatusCache.invalidate(chunk);
+        }
+        if (List.of("DEACTIVATE", "DELETE").contains(operation)) {
+            tokenRevocationService.revokeAllForUsers(chunk);
+        }
+        // Set-based writes skip JPA callbacks, so announce the change explicitly
+        eventPublisher.publishEvent(UserChangedEvent.of(chunk));
+        return changed;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cotowork.userservice.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 row writer shared by the CSV downloads: a field is quoted when it contains a comma,
+ * quote, CR/LF or leading/trailing space, and embedded quotes are doubled. null is written as
+ * an empty field.
+ *
+ * Quoting does not stop spreadsheet formula injection: Excel/LibreOffice still evaluate a cell
+ * starting with =, +, -, @, tab or CR. Files meant to be opened by people use
+ * {@link #writeSpreadsheetRow}, which prefixes such text with a single quote.
+ */
+final class CsvRecordWriter {
+
+    private CsvRecordWriter() {
+    }
+
+    static void writeRow(Writer writer, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    /** writeRow for files opened in a spreadsheet: text that would start a formula is neutralized */
+    static void writeSpreadsheetRow(Writer writer, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escape(neutralizeFormula(fields[i])));
+        }
+        writer.write('\n');
+    }
+
+    /** Only text is touched; numbers, booleans and timestamps are written as-is */
+    static Object neutralizeFormula(Object field) {
+        if (!(field instanceof String value) || value.isEmpty()) return field;
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@'
+                || first == '\t' || first == '\r';
+        return formula ? "'" + value : value;
+    }
+
+    static String escape(Object field) {
+        if (field == null) return "";
+        String value = field.toString();
+        if (value.isEmpty()) return value;
+        boolean quote = value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+}
@@ -0,0 +1,144 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs BCrypt on a dedicated, bounded pool instead of directly on Tomcat request threads.
+ *
+ * At most {@code threads} hashes run at once and at most {@code queue-capacity} wait; anything
+ * beyond that is rejected immediately with 503 SERVICE_UNAVAILABLE. During a login storm only
+ * threads + queue-capacity request threads are ever parked on hashing, so the rest of the
+ * worker pool keeps serving cheap endpoints.
+ *
+ * Bulk jobs (mass reset, import) use {@link #encodeAll} on a separate fork-join pool so a
+ * 2,000-user reset is spread over all cores without taking slots from the login queue.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ForkJoinPool bulkPool;
+    private final long timeoutMs;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.password-hashing.threads:0}") int threads,
+                                  @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.password-hashing.timeout-ms:5000}") long timeoutMs,
+                                  @Value("${app.password-hashing.bulk-parallelism:0}") int bulkParallelism) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkPool = new ForkJoinPool(bulkParallelism > 0 ? bulkParallelism : Runtime.getRuntime().availableProcessors());
+
+        this.queueWait = Timer.builder("password.hash.queue.wait")
+                .description("Time a hashing task waited for a free hashing thread")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("password.hash.rejected");
+        meterRegistry.gauge("password.hash.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", encoder -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", encoder -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Encode many passwords in parallel on the bulk pool; the result is in input order.
+     * Blocks the caller until the whole list is done (bulk callers pass one chunk at a time).
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        if (rawPasswords.isEmpty()) return List.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return bulkPool.submit(() -> rawPasswords.parallelStream()
+                    .map(passwordEncoder::encode)
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR, e.getCause());
+        } finally {
+            sample.stop(meterRegistry.timer("password.hash.duration", "operation", "bulk_encode"));
+            meterRegistry.counter("password.hash.bulk.items").increment(rawPasswords.size());
+        }
+    }
+
+    /**
+     * Run several hashing steps as one task (e.g. verify old password, compare, encode new)
+     * so the request queues once. Business exceptions thrown by the work are rethrown as-is.
+     */
+    public <T> T execute(String operation, Function<PasswordEncoder, T> work) {
+        long enqueuedAt = System.nanoTime();
+        Timer hashTimer = meterRegistry.timer("password.hash.duration", "operation", operation);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(() -> work.apply(passwordEncoder));
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue full, rejecting {} request", operation);
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Hệ thống đang bận, vui lòng thử lại sau");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            log.warn("Password hashing {} timed out after {} ms", operation, timeoutMs);
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Hệ thống đang bận, vui lòng thử lại sau");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR, e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        bulkPool.shutdown();
+    }
+}
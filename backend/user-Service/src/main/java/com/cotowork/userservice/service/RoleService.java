@@ -1,7 +1,6 @@
 package com.cotowork.userservice.service;
 
 import com.cotowork.userservice.entity.UserRole;
-import com.cotowork.userservice.repository.UserRepository;
 import com.cotowork.userservice.security.Permission;
 import com.cotowork.userservice.security.RolePermissionService;
 import lombok.RequiredArgsConstructor;
@@ -23,7 +22,7 @@ import java.util.stream.Collectors;
 public class RoleService {
 
     private final RolePermissionService rolePermissionService;
-    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
 
     /**
      * Get all available roles
@@ -154,14 +153,7 @@ public class RoleService {
      */
     public Map<UserRole, Long> getRoleStats() {
         log.info("Fetching role statistics");
-        
-        Map<UserRole, Long> stats = new HashMap<>();
-        for (UserRole role : UserRole.values()) {
-            long count = userRepository.countByRole(role);
-            stats.put(role, count);
-        }
-        
-        return stats;
+        return userStatsService.getRoleCounts();
     }
 
     /**
@@ -0,0 +1,379 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserAdminCreateDto;
+import com.cotowork.userservice.dto.UserImportErrorDto;
+import com.cotowork.userservice.dto.UserImportResultDto;
+import com.cotowork.userservice.entity.Unit;
+import com.cotowork.userservice.entity.User;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.event.UserChangedEvent;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.exception.ValidationException;
+import com.cotowork.userservice.repository.UnitRepository;
+import com.cotowork.userservice.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk user import (CSV with header row, or NDJSON - one JSON object per line).
+ *
+ * The upload is read batch by batch (app.bulk.import.batch-size rows), never as a whole:
+ * 1. each row is mapped to UserAdminCreateDto and checked with the same bean validation
+ *    as POST /api/admin/users; unit codes resolve through a per-import cache
+ *    (one query per batch for codes not seen yet)
+ * 2. duplicates inside the file are caught in memory, duplicates against the database
+ *    with one query per batch
+ * 3. valid rows are hashed in parallel (PasswordHashingService.encodeAll), get ids from
+ *    the users sequence in one round-trip and are inserted as one JDBC batch
+ * A bad row is reported in the result and skipped; it never aborts the import.
+ *
+ * Columns (case and '_' insensitive): username, fullName, email, password,
+ * unitCode or unitId, role, phoneNumber, avatarUrl, isActive.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final TypeReference<Map<String, Object>> JSON_ROW = new TypeReference<>() {};
+
+    private final UserRepository userRepository;
+    private final UnitRepository unitRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate txTemplate;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    private record Row(long line, Map<String, String> values) {}
+
+    private record Candidate(long line, UserAdminCreateDto dto) {}
+
+    /** State of one running import */
+    private static final class ImportContext {
+        final Map<String, Long> unitIdsByCode = new HashMap<>();
+        final Set<Long> knownUnitIds = new HashSet<>();
+        final Set<String> seenUsernames = new HashSet<>();
+        final Set<String> seenEmails = new HashSet<>();
+        final List<UserImportErrorDto> errors = new ArrayList<>();
+        int total;
+        int created;
+        int failed;
+    }
+
+    public UserImportService(UserRepository userRepository,
+                             UnitRepository unitRepository,
+                             PasswordHashingService passwordHashingService,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.bulk.import.batch-size:500}") int batchSize,
+                             @Value("${app.bulk.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.unitRepository = unitRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    // ============================================================
+    // API
+    // ============================================================
+
+    public UserImportResultDto importUsers(InputStream in, Format format) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        ImportContext ctx = new ImportContext();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<Row> batch = new ArrayList<>(batchSize);
+        if (format == Format.CSV) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new ValidationException(ErrorCode.VALIDATION_FAILED, "Import file is empty");
+            }
+            List<String> columns = header.stream().map(UserImportService::normalizeColumn).toList();
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size() && i < record.size(); i++) {
+                    values.put(columns.get(i), record.get(i));
+                }
+                batch.add(new Row(csv.recordLine(), values));
+                if (batch.size() >= batchSize) processBatch(batch, ctx);
+            }
+        } else {
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                try {
+                    Map<String, String> values = new HashMap<>();
+                    objectMapper.readValue(line, JSON_ROW).forEach((k, v) ->
+                            values.put(normalizeColumn(k), v != null ? String.valueOf(v) : null));
+                    batch.add(new Row(lineNo, values));
+                } catch (JsonProcessingException e) {
+                    // Only the line is bad; I/O errors on the upload itself propagate from readLine()
+                    ctx.total++;
+                    reject(ctx, lineNo, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+                if (batch.size() >= batchSize) processBatch(batch, ctx);
+            }
+        }
+        if (!batch.isEmpty()) processBatch(batch, ctx);
+
+        long duration = System.currentTimeMillis() - startedAt;
+        log.info("User import finished: {} rows, {} created, {} failed in {} ms",
+                ctx.total, ctx.created, ctx.failed, duration);
+        return UserImportResultDto.builder()
+                .totalRows(ctx.total)
+                .createdUsers(ctx.created)
+                .failedRows(ctx.failed)
+                .errors(ctx.errors)
+                .errorsTruncated(ctx.failed > ctx.errors.size())
+                .durationMs(duration)
+                .build();
+    }
+
+    // ============================================================
+    // BATCH PIPELINE
+    // ============================================================
+
+    private void processBatch(List<Row> rows, ImportContext ctx) {
+        ctx.total += rows.size();
+        resolveUnits(rows, ctx);
+
+        // 1. Per-row mapping + bean validation + duplicates within the file
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String error;
+            UserAdminCreateDto dto = null;
+            try {
+                dto = toDto(row, ctx);
+                error = validate(dto);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error == null && !ctx.seenUsernames.add(dto.getUsername())) {
+                error = "Duplicate username in file: " + dto.getUsername();
+            } else if (error == null && !ctx.seenEmails.add(dto.getEmail())) {
+                ctx.seenUsernames.remove(dto.getUsername());
+                error = "Duplicate email in file: " + dto.getEmail();
+            }
+            if (error != null) {
+                reject(ctx, row.line(), row.values().get("username"), error);
+            } else {
+                candidates.add(new Candidate(row.line(), dto));
+            }
+        }
+        rows.clear();
+        if (candidates.isEmpty()) return;
+
+        // 2. Duplicates against existing users - one query for the whole batch
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        for (Object[] existing : userRepository.findExistingUsernamesAndEmails(
+                candidates.stream().map(c -> c.dto().getUsername()).toList(),
+                candidates.stream().map(c -> c.dto().getEmail()).toList())) {
+            takenUsernames.add((String) existing[0]);
+            takenEmails.add((String) existing[1]);
+        }
+        List<Candidate> accepted = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            if (takenUsernames.contains(c.dto().getUsername())) {
+                reject(ctx, c.line(), c.dto().getUsername(), ErrorCode.DUPLICATE_DATA.getMessage() + ": username");
+            } else if (takenEmails.contains(c.dto().getEmail())) {
+                reject(ctx, c.line(), c.dto().getUsername(), ErrorCode.EMAIL_EXISTED.getMessage());
+            } else {
+                accepted.add(c);
+            }
+        }
+        if (accepted.isEmpty()) return;
+
+        // 3. Parallel hashing, then ids + JDBC batch insert
+        List<String> hashes = passwordHashingService.encodeAll(
+                accepted.stream().map(c -> c.dto().getPassword()).toList());
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(toEntity(accepted.get(i).dto(), hashes.get(i)));
+        }
+        insert(accepted, users, ctx);
+    }
+
+    /** Insert the batch; if it fails (e.g. a concurrent insert took a username) retry row by row */
+    private void insert(List<Candidate> accepted, List<User> users, ImportContext ctx) {
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                assignIds(users);
+                userRepository.insertUsers(users);
+                eventPublisher.publishEvent(UserChangedEvent.of(users.stream().map(User::getId).toList()));
+            });
+            ctx.created += users.size();
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Import batch insert failed, retrying {} rows one by one: {}", users.size(), e.getMessage());
+        }
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            try {
+                txTemplate.executeWithoutResult(status -> {
+                    assignIds(List.of(user));
+                    userRepository.insertUsers(List.of(user));
+                    eventPublisher.publishEvent(UserChangedEvent.of(user.getId()));
+                });
+                ctx.created++;
+            } catch (DataAccessException e) {
+                reject(ctx, accepted.get(i).line(), user.getUsername(),
+                        "Insert failed: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void assignIds(List<User> users) {
+        List<Long> ids = userRepository.reserveUserIds(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+        }
+    }
+
+    // ============================================================
+    // ROW MAPPING
+    // ============================================================
+
+    /** Look up every unit code of the batch not yet in the cache with a single query */
+    private void resolveUnits(List<Row> rows, ImportContext ctx) {
+        Set<String> codes = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (Row row : rows) {
+            String code = trimToNull(row.values().get("unitcode"));
+            if (code != null && !ctx.unitIdsByCode.containsKey(code)) codes.add(code);
+            String id = trimToNull(row.values().get("unitid"));
+            if (code == null && id != null) {
+                try {
+                    Long unitId = Long.valueOf(id);
+                    if (!ctx.knownUnitIds.contains(unitId)) ids.add(unitId);
+                } catch (NumberFormatException ignored) {
+                    // reported per row by toDto()
+                }
+            }
+        }
+        if (!codes.isEmpty()) {
+            for (Object[] unit : unitRepository.findIdsByUnitCodeIn(codes)) {
+                ctx.unitIdsByCode.put((String) unit[0], (Long) unit[1]);
+            }
+            // Remember misses too so an unknown code is not looked up again every batch
+            codes.forEach(code -> ctx.unitIdsByCode.putIfAbsent(code, null));
+        }
+        if (!ids.isEmpty()) {
+            ctx.knownUnitIds.addAll(unitRepository.findExistingIds(ids));
+        }
+    }
+
+    private UserAdminCreateDto toDto(Row row, ImportContext ctx) {
+        Map<String, String> v = row.values();
+        Long unitId;
+        String unitCode = trimToNull(v.get("unitcode"));
+        if (unitCode != null) {
+            unitId = ctx.unitIdsByCode.get(unitCode);
+            if (unitId == null) throw new IllegalArgumentException("Unknown unit code: " + unitCode);
+        } else {
+            String rawUnitId = trimToNull(v.get("unitid"));
+            if (rawUnitId == null) throw new IllegalArgumentException("unitCode or unitId is required");
+            try {
+                unitId = Long.valueOf(rawUnitId);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid unitId: " + rawUnitId);
+            }
+            if (!ctx.knownUnitIds.contains(unitId)) throw new IllegalArgumentException("Unknown unit id: " + unitId);
+        }
+
+        String role = trimToNull(v.get("role"));
+        UserRole userRole;
+        try {
+            userRole = role != null ? UserRole.valueOf(role.toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid role: " + role);
+        }
+        String isActive = trimToNull(v.get("isactive"));
+
+        return UserAdminCreateDto.builder()
+                .username(trimToNull(v.get("username")))
+                .fullName(trimToNull(v.get("fullname")))
+                .email(trimToNull(v.get("email")))
+                .password(v.get("password"))
+                .unitId(unitId)
+                .role(userRole)
+                .phoneNumber(trimToNull(v.get("phonenumber")))
+                .avatarUrl(trimToNull(v.get("avatarurl")))
+                .isActive(isActive == null || Boolean.parseBoolean(isActive))
+                .build();
+    }
+
+    /** Same constraints as the single-user admin endpoint; null when valid */
+    private String validate(UserAdminCreateDto dto) {
+        Set<ConstraintViolation<UserAdminCreateDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static User toEntity(UserAdminCreateDto dto, String passwordHash) {
+        return User.builder()
+                .username(dto.getUsername())
+                .fullName(dto.getFullName())
+                .email(dto.getEmail())
+                .passwordHash(passwordHash)
+                .unit(Unit.builder().id(dto.getUnitId()).build())
+                .role(dto.getRole())
+                .phoneNumber(dto.getPhoneNumber())
+                .avatarUrl(dto.getAvatarUrl())
+                .isActive(dto.getIsActive())
+                .build();
+    }
+
+    private void reject(ImportContext ctx, long line, String username, String message) {
+        ctx.failed++;
+        if (ctx.errors.size() < maxReportedErrors) {
+            ctx.errors.add(UserImportErrorDto.builder().line(line).username(username).message(message).build());
+        }
+    }
+
+    private static String normalizeColumn(String name) {
+        return name == null ? "" : name.replace("\uFEFF", "").trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -11,13 +11,20 @@ import com.cotowork.userservice.exception.ValidationException; // Thêm Validati
 import com.cotowork.userservice.mapper.UserMapper;
 import com.cotowork.userservice.repository.UserRepository;
 import com.cotowork.userservice.repository.UnitRepository;
+import com.cotowork.userservice.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,17 +35,37 @@ public class UserService {
     private final UserRepository userRepository;
     private final UnitRepository unitRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder; 
+    private final PasswordHashingService passwordHashingService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    private static final int MAX_ID_PAGE_SIZE = 10_000;
+    private static final int MAX_LIST_PAGE_SIZE = 1_000;
     
     /**
      * Get all users
      */
     public List<UserResponseDto> getAllUsers() {
         log.info("Fetching all users");
-        List<User> users = userRepository.findAll();
+        List<User> users = userRepository.findAllWithUnit();
         return userMapper.toResponseDtoList(users);
     }
     
+    /**
+     * Keyset page of active user ids for inter-service fan-out (e.g. sendToAll).
+     * Callers pass the returned nextAfterId back until it is null.
+     */
+    public UserIdPageDto getActiveUserIds(Long afterId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_ID_PAGE_SIZE);
+        List<Long> ids = userRepository.findActiveIdsAfter(
+                afterId != null ? afterId : 0L, PageRequest.of(0, pageSize));
+        Long nextAfterId = ids.size() == pageSize ? ids.get(ids.size() - 1) : null;
+        return UserIdPageDto.builder()
+                .ids(ids)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
     /**
      * Get user by ID
      */
@@ -83,7 +110,7 @@ public class UserService {
         User user = userMapper.toEntity(dto);
         
         // Hash password
-        String hashedPassword = passwordEncoder.encode(dto.getPassword());
+        String hashedPassword = passwordHashingService.encode(dto.getPassword());
         user.setPasswordHash(hashedPassword);
         
         // Set unit
@@ -140,12 +167,12 @@ public class UserService {
             .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.USER_NOT_FOUND));
         
         // Verify old password
-        if (!passwordEncoder.matches(oldPassword, user.getPasswordHash())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPasswordHash())) {
             throw new ValidationException(ErrorCode.INVALID_PASSWORD);
         }
         
         // Hash and set new password
-        String hashedPassword = passwordEncoder.encode(newPassword);
+        String hashedPassword = passwordHashingService.encode(newPassword);
         user.setPasswordHash(hashedPassword);
         
         userRepository.save(user);
@@ -164,21 +191,22 @@ public class UserService {
         
         user.setIsActive(false);
         userRepository.save(user);
+        userStatusCache.invalidate(id);
+        tokenRevocationService.revokeAllForUser(id);
         
         log.info("User soft deleted successfully with id: {}", id);
     }
     
     /**
-     * Get users by unit
+     * Get users by unit (one page, indexed on unit_id)
      */
-    public List<UserResponseDto> getUsersByUnit(Long unitId) {
-        log.info("Fetching users for unit id: {}", unitId);
-        Unit unit = unitRepository.findById(unitId)
-            .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.RESOURCE_NOT_FOUND));
-        List<User> users = userRepository.findAll().stream()
-            .filter(user -> user.getUnit() != null && user.getUnit().getId().equals(unitId))
-            .toList();
-        return userMapper.toResponseDtoList(users);
+    public Page<UserResponseDto> getUsersByUnit(Long unitId, int page, int size) {
+        log.info("Fetching users for unit id: {} (page {}, size {})", unitId, page, size);
+        if (!unitRepository.existsById(unitId)) {
+            throw new ResourceNotFoundException(ErrorCode.RESOURCE_NOT_FOUND);
+        }
+        Page<User> users = userRepository.findByUnitId(unitId, pageRequest(page, size, Sort.by("id")));
+        return users.map(userMapper::toResponseDto);
     }
     
     /**
@@ -191,15 +219,30 @@ public class UserService {
     }
     
     /**
-     * Search users by keyword
+     * Search users by keyword (case-insensitive substring, trigram-indexed, one page)
      */
-    public List<UserResponseDto> searchUsers(String keyword) {
+    public Page<UserResponseDto> searchUsers(String keyword, int page, int size) {
         log.info("Searching users with keyword: {}", keyword);
-        List<User> users = userRepository.findAll().stream()
-            .filter(user -> user.getUsername().contains(keyword) || 
-                            user.getFullName().contains(keyword) ||
-                            user.getEmail().contains(keyword))
-            .toList();
-        return userMapper.toResponseDtoList(users);
+        if (keyword == null || keyword.isBlank()) {
+            return Page.empty(pageRequest(page, size, Sort.unsorted()));
+        }
+        String pattern = "%" + escapeLike(keyword.trim()) + "%";
+        Page<Long> ids = userRepository.searchIdsByPattern(pattern, pageRequest(page, size, Sort.unsorted()));
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        // Second query loads the page's users with their units; keep the search order
+        Map<Long, User> byId = userRepository.findWithUnitByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.map(id -> userMapper.toResponseDto(byId.get(id)));
+    }
+    
+    private static PageRequest pageRequest(int page, int size, Sort sort) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_LIST_PAGE_SIZE), sort);
+    }
+    
+    /** Escape ILIKE wildcards so the keyword matches literally (ESCAPE '\') */
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
\ No newline at end of file
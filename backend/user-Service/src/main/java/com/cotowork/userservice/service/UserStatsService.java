@@ -0,0 +1,193 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserStatsDto;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User statistics for the admin dashboard and role stats.
+ *
+ * All figures come from one aggregate query (UserRepository.aggregateUserStats) and are served
+ * from an in-memory snapshot:
+ * - younger than app.user-stats.ttl-ms: returned as is
+ * - older, but younger than app.user-stats.max-stale-ms: returned as is while a background
+ *   refresh runs
+ * - missing or older than that: the caller waits for the refresh, at most
+ *   app.user-stats.wait-timeout-ms (then 503)
+ * Refreshes are single-flight: however many dashboards load at once, at most one query is in flight.
+ */
+@Service
+@Slf4j
+public class UserStatsService {
+
+    private static final int GROUP_TOTAL = 3;
+    private static final int GROUP_ROLE = 1;
+    private static final int GROUP_UNIT = 2;
+
+    private record Snapshot(UserStatsDto stats, long loadedAt) {}
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate txTemplate;
+    private final ExecutorService refresher;
+    private final Timer refreshTimer;
+    private final long ttlMs;
+    private final long maxStaleMs;
+    private final long waitTimeoutMs;
+
+    private volatile Snapshot snapshot;
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    public UserStatsService(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.user-stats.ttl-ms:10000}") long ttlMs,
+                            @Value("${app.user-stats.max-stale-ms:60000}") long maxStaleMs,
+                            @Value("${app.user-stats.wait-timeout-ms:15000}") long waitTimeoutMs) {
+        this.userRepository = userRepository;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.txTemplate.setReadOnly(true);
+        this.ttlMs = ttlMs;
+        this.maxStaleMs = maxStaleMs;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.refreshTimer = meterRegistry.timer("user.stats.refresh");
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "user-stats-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ============================================================
+    // API
+    // ============================================================
+
+    /** Current statistics; the returned DTO is a copy and may be modified by the caller */
+    public UserStatsDto getStats() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.loadedAt() < ttlMs) {
+            return copy(current.stats());
+        }
+        CompletableFuture<Snapshot> refresh = refresh();
+        if (current != null && now - current.loadedAt() < maxStaleMs) {
+            return copy(current.stats());
+        }
+        try {
+            return copy(refresh.get(waitTimeoutMs, TimeUnit.MILLISECONDS).stats());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, e);
+        } catch (TimeoutException e) {
+            // The refresh keeps running and later callers join it
+            throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new BusinessException(ErrorCode.INTERNAL_SERVER_ERROR, e.getCause());
+        }
+    }
+
+    public Map<UserRole, Long> getRoleCounts() {
+        Map<UserRole, Long> counts = new EnumMap<>(UserRole.class);
+        getStats().getUsersByRole().forEach((role, count) -> counts.put(UserRole.valueOf(role), count));
+        return counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    // ============================================================
+    // REFRESH (single-flight)
+    // ============================================================
+
+    /** Join the running refresh or start one */
+    private CompletableFuture<Snapshot> refresh() {
+        while (true) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) return running;
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, mine)) continue;
+            refresher.execute(() -> {
+                try {
+                    Snapshot loaded = new Snapshot(refreshTimer.record(() -> txTemplate.execute(status -> load())),
+                            System.currentTimeMillis());
+                    snapshot = loaded;
+                    // Clear before completing: a caller woken by the result must be able to start
+                    // the next refresh instead of joining this finished (possibly failed) one
+                    inFlight.compareAndSet(mine, null);
+                    mine.complete(loaded);
+                } catch (Throwable t) {
+                    log.error("User statistics refresh failed: {}", t.getMessage());
+                    inFlight.compareAndSet(mine, null);
+                    mine.completeExceptionally(t);
+                }
+            });
+            return mine;
+        }
+    }
+
+    private UserStatsDto load() {
+        LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime startOfWeek = LocalDateTime.now().minusDays(7);
+
+        long total = 0, active = 0, createdThisMonth = 0, createdThisWeek = 0;
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (UserRole role : UserRole.values()) byRole.put(role.name(), 0L);
+        Map<String, Long> byUnit = new LinkedHashMap<>();
+
+        for (Object[] row : userRepository.aggregateUserStats(startOfMonth, startOfWeek)) {
+            int group = ((Number) row[0]).intValue();
+            long count = ((Number) row[3]).longValue();
+            switch (group) {
+                case GROUP_TOTAL -> {
+                    total = count;
+                    active = ((Number) row[4]).longValue();
+                    createdThisMonth = ((Number) row[5]).longValue();
+                    createdThisWeek = ((Number) row[6]).longValue();
+                }
+                case GROUP_ROLE -> byRole.put(String.valueOf(row[1]), count);
+                case GROUP_UNIT -> byUnit.put(row[2] != null ? row[2].toString() : "Unknown", count);
+                default -> { }
+            }
+        }
+
+        return UserStatsDto.builder()
+                .totalUsers(total)
+                .activeUsers(active)
+                .inactiveUsers(total - active)
+                .usersByRole(Collections.unmodifiableMap(byRole))
+                .usersByUnit(Collections.unmodifiableMap(byUnit))
+                .usersCreatedThisMonth(createdThisMonth)
+                .usersCreatedThisWeek(createdThisWeek)
+                .build();
+    }
+
+    private static UserStatsDto copy(UserStatsDto stats) {
+        return UserStatsDto.builder()
+                .totalUsers(stats.getTotalUsers())
+                .activeUsers(stats.getActiveUsers())
+                .inactiveUsers(stats.getInactiveUsers())
+                .usersByRole(new LinkedHashMap<>(stats.getUsersByRole()))
+                .usersByUnit(new LinkedHashMap<>(stats.getUsersByUnit()))
+                .usersCreatedThisMonth(stats.getUsersCreatedThisMonth())
+                .usersCreatedThisWeek(stats.getUsersCreatedThisWeek())
+                .build();
+    }
+}
@@ -0,0 +1,177 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.entity.User;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Short-lived in-memory cache of "is this user active", used by token validation
+ * so the gateway's per-request /api/auth/validate call does not hit the database.
+ *
+ * Entries expire after {@code app.user-status-cache.ttl-ms}. Services that change a user's
+ * active flag call {@link #invalidate}: the local entry is dropped immediately and again after
+ * the transaction commits, and the ids are published on a Redis channel so every other
+ * instance drops its copy too. If Redis is unavailable, staleness is bounded by the TTL.
+ *
+ * Every invalidation also stamps the id with a new version. A miss reads the version before
+ * going to the database and only caches the result if the version is unchanged, so a load
+ * that raced with an invalidation cannot put the pre-invalidation value back.
+ */
+@Component
+@Slf4j
+public class UserStatusCache implements MessageListener {
+
+    public static final String CHANNEL = "user-status:invalidate";
+
+    private record Entry(boolean active, long loadedAt) {}
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlMs;
+    private final int maxSize;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    /** id → sequence number of its last invalidation; ids not in the map are at versionFloor */
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong invalidationSeq = new AtomicLong();
+    private volatile long versionFloor;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public UserStatusCache(UserRepository userRepository,
+                           StringRedisTemplate redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.user-status-cache.ttl-ms:30000}") long ttlMs,
+                           @Value("${app.user-status-cache.max-size:50000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+        this.hits = meterRegistry.counter("user.status.cache", "result", "hit");
+        this.misses = meterRegistry.counter("user.status.cache", "result", "miss");
+        this.invalidations = meterRegistry.counter("user.status.cache.invalidations");
+        meterRegistry.gaugeMapSize("user.status.cache.size", List.of(), entries);
+    }
+
+    /**
+     * Whether the user exists and is active. Unknown users are cached as inactive.
+     */
+    public boolean isActive(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.loadedAt() < ttlMs) {
+            hits.increment();
+            return entry.active();
+        }
+        misses.increment();
+
+        long version = versionOf(userId);
+        boolean active = userRepository.findById(userId)
+                .map(User::getIsActive)
+                .map(Boolean.TRUE::equals)
+                .orElse(false);
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+        }
+        // Checked under the entry's lock: an invalidation bumps the version before removing the
+        // entry, so it either makes this put a no-op or removes what was put
+        entries.compute(userId, (id, current) ->
+                versionOf(id) == version ? new Entry(active, now) : current);
+        return active;
+    }
+
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    /**
+     * Drop the given users here and on every other instance.
+     * Inside a transaction the drop is repeated after commit, so a concurrent
+     * read cannot re-cache the pre-commit value for a full TTL.
+     */
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(userIds);
+        evictLocal(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(ids);
+                    broadcast(ids);
+                }
+            });
+        } else {
+            broadcast(ids);
+        }
+    }
+
+    /**
+     * Invalidation published by another instance (or echoed back from this one - harmless).
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            for (String id : body.split(",")) {
+                if (!id.isBlank()) evict(Long.valueOf(id.trim()));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed user-status invalidation: {}", body);
+        }
+    }
+
+    private void evictLocal(List<Long> ids) {
+        ids.forEach(this::evict);
+        invalidations.increment(ids.size());
+    }
+
+    private void evict(Long userId) {
+        if (versions.size() >= maxSize) {
+            versions.clear();
+            // Raised after clearing: any load that started before sees a different version
+            versionFloor = invalidationSeq.incrementAndGet();
+        }
+        versions.put(userId, invalidationSeq.incrementAndGet());
+        entries.remove(userId);
+    }
+
+    private long versionOf(Long userId) {
+        return versions.getOrDefault(userId, versionFloor);
+    }
+
+    private void broadcast(List<Long> ids) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, ids.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            log.warn("Failed to broadcast user-status invalidation for {} users: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(e -> now - e.loadedAt() >= ttlMs);
+        if (entries.size() >= maxSize) {
+            // Still full of live entries: start over rather than grow unbounded
+            entries.clear();
+        }
+    }
+}
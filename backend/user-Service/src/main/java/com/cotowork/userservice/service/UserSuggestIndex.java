@@ -0,0 +1,331 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserSuggestionDto;
+import com.cotowork.userservice.event.UserChangedEvent;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory typeahead index over username, full name and email (GET /api/users/suggest).
+ *
+ * Every field is folded to lowercase ASCII (accents stripped, "đ" → "d", so "nguyen" finds
+ * "Nguyễn") and split into word tokens; a sorted token → user-ids map answers "which users
+ * have a token starting with X" with one range scan. For a multi-word query the most
+ * selective (longest) word drives the scan and the others are checked per candidate.
+ * With a unit filter the unit's members are scanned directly when that is cheaper.
+ *
+ * Built once at startup, then kept current from UserChangedEvent after each commit. Changes
+ * that commit while the build is streaming are buffered and re-read once it finishes.
+ * Until the first build finishes, suggest() returns an empty list.
+ *
+ * The index is local to each instance and events only reach the instance that made the
+ * write, so a periodic reconcile (app.user-suggest.reconcile-interval-ms) re-reads users
+ * updated since the previous pass and drops deleted ones. With several instances, a
+ * change made elsewhere shows up here within one reconcile interval.
+ */
+@Service
+@Slf4j
+public class UserSuggestIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+    private static final int DIRECT_UNIT_SCAN_LIMIT = 2_000;
+
+    /** words = " " + tokens joined by " " + " ", so matching touches one string instead of every token */
+    private record Entry(Long id, String username, String fullName, String email,
+                         Long unitId, boolean active, String avatarUrl, String[] tokens, String words) {}
+
+    /** A match with its rank key computed once, not on every comparison */
+    private record Match(Entry entry, boolean exact) {}
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparing((Match m) -> !m.exact())
+            .thenComparing(m -> m.entry().fullName() != null ? m.entry().fullName() : "");
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate txTemplate;
+    private final Timer suggestTimer;
+    private final int maxLimit;
+    private final long reconcileOverlapMs;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> tokenIndex = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Set<Long>> unitMembers = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Users changed while the build was running; guarded by buildLock, replayed after the build
+    private final Object buildLock = new Object();
+    private final Set<Long> changedDuringBuild = new HashSet<>();
+    // Start of the last build/reconcile pass; the next pass re-reads rows updated after it
+    private volatile LocalDateTime syncedUpTo;
+
+    public UserSuggestIndex(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.user-suggest.max-limit:50}") int maxLimit,
+                            @Value("${app.user-suggest.reconcile-overlap-ms:60000}") long reconcileOverlapMs) {
+        this.userRepository = userRepository;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.txTemplate.setReadOnly(true);
+        this.maxLimit = maxLimit;
+        this.reconcileOverlapMs = reconcileOverlapMs;
+        this.suggestTimer = meterRegistry.timer("user.suggest.latency");
+        meterRegistry.gaugeMapSize("user.suggest.index.size", List.of(), entries);
+    }
+
+    // ============================================================
+    // QUERY
+    // ============================================================
+
+    /**
+     * Top matches for a typed prefix. unitId = null means all units; activeOnly skips
+     * deactivated users. Results: exact-word matches first, then by full name.
+     */
+    public List<UserSuggestionDto> suggest(String query, Long unitId, boolean activeOnly, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || !ready) return List.of();
+        // " word" matches the start of a token, " word " a whole token
+        String[] words = Arrays.stream(tokens).map(t -> " " + t).toArray(String[]::new);
+        int k = Math.min(Math.max(limit, 1), maxLimit);
+        return suggestTimer.record(() -> {
+            String driver = Arrays.stream(tokens).max(Comparator.comparingInt(String::length)).orElseThrow();
+
+            List<Match> matches = new ArrayList<>();
+            Set<Long> members = unitId != null ? unitMembers.get(unitId) : null;
+            if (unitId != null && members == null) return List.<UserSuggestionDto>of();
+            if (members != null && members.size() <= DIRECT_UNIT_SCAN_LIMIT) {
+                for (Long id : members) {
+                    Entry e = entries.get(id);
+                    if (e != null && accepts(e, words, unitId, activeOnly)) matches.add(new Match(e, hasExactWord(e, words)));
+                }
+            } else {
+                // Tokens come in lexical order, so exact/shorter words are seen first;
+                // stop as soon as there are enough candidates to rank (a common prefix
+                // such as "nguyen" can map to thousands of users)
+                Set<Long> seen = new HashSet<>();
+                int wanted = k * 4;
+                scan:
+                for (Set<Long> ids : tokenIndex.subMap(driver, true, driver + Character.MAX_VALUE, false).values()) {
+                    for (Long id : ids) {
+                        if (!seen.add(id)) continue;
+                        Entry e = entries.get(id);
+                        if (e != null && accepts(e, words, unitId, activeOnly)) {
+                            matches.add(new Match(e, hasExactWord(e, words)));
+                            if (matches.size() >= wanted) break scan;
+                        }
+                    }
+                }
+            }
+
+            matches.sort(RANKING);
+            return matches.stream().limit(k).map(m -> toDto(m.entry())).toList();
+        });
+    }
+
+    // ============================================================
+    // MAINTENANCE
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime syncStart = LocalDateTime.now();
+        txTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = userRepository.streamSuggestRows()) {
+                rows.forEach(this::put);
+            }
+        });
+        syncedUpTo = syncStart;
+
+        // The stream may have read some of these users before their change committed
+        List<Long> replay;
+        synchronized (buildLock) {
+            ready = true;
+            replay = new ArrayList<>(changedDuringBuild);
+            changedDuringBuild.clear();
+        }
+        if (!replay.isEmpty()) refresh(replay);
+        log.info("User suggest index built with {} users in {} ms ({} changes replayed)",
+                entries.size(), System.currentTimeMillis() - startedAt, replay.size());
+    }
+
+    /** Re-read changed users after commit; ids no longer in the table are dropped */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        synchronized (buildLock) {
+            if (!ready) {
+                changedDuringBuild.addAll(event.userIds());
+                return;
+            }
+        }
+        refresh(event.userIds());
+    }
+
+    /**
+     * Catch up with writes this instance saw no event for (other instances, missed events):
+     * re-read users updated since the previous pass, and when the row count disagrees with
+     * the index, compare ids to drop deleted users and load missing ones.
+     * The overlap re-reads a margin before the previous pass for clock skew between
+     * instances and transactions that committed after their updated_at was set.
+     */
+    @Scheduled(fixedDelayString = "${app.user-suggest.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.user-suggest.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!ready) return;
+        LocalDateTime syncStart = LocalDateTime.now();
+        LocalDateTime since = syncedUpTo.minusNanos(reconcileOverlapMs * 1_000_000);
+        try {
+            int[] counts = txTemplate.execute(status -> {
+                List<Object[]> updated = userRepository.findSuggestRowsUpdatedSince(since);
+                updated.forEach(this::put);
+
+                int removed = 0;
+                List<Long> missing = new ArrayList<>();
+                if (userRepository.count() != entries.size()) {
+                    Set<Long> live = new HashSet<>(userRepository.findAllIds());
+                    for (Long id : entries.keySet()) {
+                        if (!live.contains(id)) {
+                            remove(id);
+                            removed++;
+                        }
+                    }
+                    for (Long id : live) {
+                        if (!entries.containsKey(id)) missing.add(id);
+                    }
+                    if (!missing.isEmpty()) userRepository.findSuggestRowsByIdIn(missing).forEach(this::put);
+                }
+                return new int[]{updated.size(), removed, missing.size()};
+            });
+            syncedUpTo = syncStart;
+            if (counts[0] + counts[1] + counts[2] > 0) {
+                log.debug("User suggest index reconciled: {} updated, {} removed, {} added",
+                        counts[0], counts[1], counts[2]);
+            }
+        } catch (Exception e) {
+            log.warn("User suggest index reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private void refresh(Collection<Long> userIds) {
+        try {
+            Set<Long> missing = new HashSet<>(userIds);
+            for (Object[] row : userRepository.findSuggestRowsByIdIn(userIds)) {
+                missing.remove((Long) row[0]);
+                put(row);
+            }
+            missing.forEach(this::remove);
+        } catch (Exception e) {
+            log.warn("Failed to refresh suggest index for users {}: {}", userIds, e.getMessage());
+        }
+    }
+
+    private void put(Object[] row) {
+        Long id = (Long) row[0];
+        String username = (String) row[1];
+        String fullName = (String) row[2];
+        String email = (String) row[3];
+        Long unitId = (Long) row[4];
+        Set<String> tokens = new LinkedHashSet<>();
+        Collections.addAll(tokens, tokenize(username));
+        Collections.addAll(tokens, tokenize(fullName));
+        Collections.addAll(tokens, tokenize(email));
+        Entry entry = new Entry(id, username, fullName, email, unitId,
+                Boolean.TRUE.equals(row[5]), (String) row[6], tokens.toArray(String[]::new),
+                " " + String.join(" ", tokens) + " ");
+
+        // Per-user updates are serialized through compute() on the entries map
+        entries.compute(id, (k, previous) -> {
+            if (previous != null) unlink(previous);
+            for (String token : entry.tokens()) {
+                tokenIndex.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            if (unitId != null) unitMembers.computeIfAbsent(unitId, u -> ConcurrentHashMap.newKeySet()).add(id);
+            return entry;
+        });
+    }
+
+    private void remove(Long id) {
+        entries.computeIfPresent(id, (k, previous) -> {
+            unlink(previous);
+            return null;
+        });
+    }
+
+    private void unlink(Entry entry) {
+        for (String token : entry.tokens()) {
+            tokenIndex.computeIfPresent(token, (t, ids) -> {
+                ids.remove(entry.id());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        if (entry.unitId() != null) {
+            unitMembers.computeIfPresent(entry.unitId(), (u, ids) -> {
+                ids.remove(entry.id());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // ============================================================
+    // MATCHING
+    // ============================================================
+
+    /** Every query word (" " + word) must be a prefix of some token of the user */
+    private static boolean accepts(Entry e, String[] words, Long unitId, boolean activeOnly) {
+        if (activeOnly && !e.active()) return false;
+        if (unitId != null && !unitId.equals(e.unitId())) return false;
+        for (String word : words) {
+            if (!e.words().contains(word)) return false;
+        }
+        return true;
+    }
+
+    private static boolean hasExactWord(Entry e, String[] words) {
+        for (String word : words) {
+            int at = e.words().indexOf(word);
+            while (at >= 0) {
+                if (e.words().charAt(at + word.length()) == ' ') return true;
+                at = e.words().indexOf(word, at + 1);
+            }
+        }
+        return false;
+    }
+
+    /** Lowercase, accent-free ASCII words */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) return new String[0];
+        String folded = Normalizer.normalize(text.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD);
+        folded = MARKS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded)).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    private static UserSuggestionDto toDto(Entry e) {
+        return UserSuggestionDto.builder()
+                .id(e.id())
+                .username(e.username())
+                .fullName(e.fullName())
+                .email(e.email())
+                .unitId(e.unitId())
+                .isActive(e.active())
+                .avatarUrl(e.avatarUrl())
+                .build();
+    }
+}
@@ -43,9 +43,25 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE INDEX IF NOT EXISTS idx_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_unit_id ON users(unit_id);
+
+-- Trigram indexes for GET /api/users/search (ILIKE '%kw%' on three columns)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (username gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (full_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (email gin_trgm_ops);
 CREATE INDEX IF NOT EXISTS idx_unit_code ON units(unit_code);
 CREATE INDEX IF NOT EXISTS idx_parent_unit ON units(parent_unit_id);
 
+-- Revoked access tokens ("jti:<jti>") and per-user cut-offs ("user:<id>"),
+-- purged by TokenRevocationService once expires_at has passed
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    revocation_key VARCHAR(100) PRIMARY KEY,
+    user_id BIGINT,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires ON revoked_tokens(expires_at);
+
 -- Insert sample data
 
 -- Root unit
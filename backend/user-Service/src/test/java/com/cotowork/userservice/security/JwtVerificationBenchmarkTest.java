@@ -0,0 +1,131 @@
+package com.cotowork.userservice.security;
+
+import com.cotowork.userservice.dto.TokenValidationRequestDto;
+import com.cotowork.userservice.dto.TokenValidationResponseDto;
+import com.cotowork.userservice.repository.UserRepository;
+import com.cotowork.userservice.service.AuthenticationService;
+import com.cotowork.userservice.service.PasswordHashingService;
+import com.cotowork.userservice.service.UserStatusCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.crypto.SecretKey;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Microbenchmark of JWT verification per request.
+ *
+ * Parses are counted on a spy of JwtUtil (verify() is the only method that parses).
+ * Before the single-parse change the filter parsed the same token 8 times: extractUsername,
+ * validateAccessToken (validateToken + isTokenExpired + extractTokenType) and four claim
+ * extractions, each with a freshly built parser. Median time per request is logged.
+ */
+@Slf4j
+class JwtVerificationBenchmarkTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes());
+    private static final int LEGACY_PARSES_PER_REQUEST = 8;
+    private static final int REQUESTS = 2_000;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(SECRET, 3_600_000, 86_400_000,
+                mock(TokenRevocationService.class, withSettings().stubOnly())));
+        token = jwtUtil.generateAccessToken("alice", 5L, "USER", 3L, List.of("user:read", "user:update"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void filterRequest(JwtAuthenticationFilter filter) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    /** The pre-change filter: 8 parses, each through a newly built parser */
+    private Object legacyFilterRequest() {
+        Object last = null;
+        for (int i = 0; i < LEGACY_PARSES_PER_REQUEST; i++) {
+            last = Jwts.parser().verifyWith(KEY).build().parseSignedClaims(token).getPayload().getSubject();
+        }
+        return last;
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    private static long medianNanos(Step step) throws Exception {
+        for (int i = 0; i < REQUESTS; i++) step.run();   // JIT warm-up
+        long[] nanos = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            step.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[REQUESTS / 2];
+    }
+
+    @Test
+    void filterParsesTheTokenOncePerRequest() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
+
+        filterRequest(filter);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("alice");
+        verify(jwtUtil, times(1)).verify(token);
+    }
+
+    @Test
+    void gatewayValidationParsesTheTokenOncePerRequest() {
+        UserStatusCache userStatusCache = mock(UserStatusCache.class);
+        when(userStatusCache.isActive(anyLong())).thenReturn(true);
+        AuthenticationService authenticationService = new AuthenticationService(mock(UserRepository.class),
+                mock(PasswordHashingService.class), jwtUtil, mock(RolePermissionService.class), userStatusCache,
+                mock(TokenRevocationService.class), mock(PlatformTransactionManager.class));
+
+        TokenValidationResponseDto response =
+                authenticationService.validateToken(new TokenValidationRequestDto("Bearer " + token));
+
+        assertThat(response.isValid()).isTrue();
+        verify(jwtUtil, times(1)).verify(token);
+    }
+
+    @Test
+    void filterPathBeforeAndAfter() throws Exception {
+        // Plain instance: the spy's invocation recording would dominate the timing
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(new JwtUtil(SECRET, 3_600_000, 86_400_000,
+                mock(TokenRevocationService.class, withSettings().stubOnly())));
+
+        long legacy = medianNanos(this::legacyFilterRequest);
+        long singleParse = medianNanos(() -> filterRequest(filter));
+
+        log.info("[Benchmark] JWT per request: {} parses {} us, 1 parse {} us",
+                LEGACY_PARSES_PER_REQUEST, legacy / 1_000.0, singleParse / 1_000.0);
+
+        assertThat(singleParse).isLessThan(legacy);
+    }
+}
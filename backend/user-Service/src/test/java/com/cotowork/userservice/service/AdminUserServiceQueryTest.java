@@ -0,0 +1,134 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserResponseDto;
+import com.cotowork.userservice.entity.Unit;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.mapper.UnitMapperImpl;
+import com.cotowork.userservice.mapper.UserMapperImpl;
+import com.cotowork.userservice.security.RolePermissionService;
+import com.cotowork.userservice.security.TokenRevocationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.cotowork.userservice.service.UserServiceQueryTest.unit;
+import static com.cotowork.userservice.service.UserServiceQueryTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts for AdminUserService's list endpoints against an in-memory H2 database:
+ * the listed users span several units, and each endpoint must still load them with their
+ * units in a fixed number of statements.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({AdminUserService.class, UserMapperImpl.class, UnitMapperImpl.class})
+class AdminUserServiceQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
+    @MockBean
+    private BulkPasswordResetService bulkPasswordResetService;
+
+    @MockBean
+    private BulkUserOperationService bulkUserOperationService;
+
+    @MockBean
+    private UserStatsService userStatsService;
+
+    @MockBean
+    private RolePermissionService rolePermissionService;
+
+    @MockBean
+    private UserStatusCache userStatusCache;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Unit sales = entityManager.persist(unit("SALES"));
+        Unit hr = entityManager.persist(unit("HR"));
+        Unit it = entityManager.persist(unit("IT"));
+        entityManager.persist(user("an", "Nguyen Van An", sales, UserRole.STAFF));
+        entityManager.persist(user("binh", "Tran Thi Binh", hr, UserRole.STAFF));
+        entityManager.persist(user("chi", "Le Minh Chi", it, UserRole.STAFF));
+        entityManager.persist(user("dung", "Pham Dung", hr, UserRole.ADMIN));
+        entityManager.flush();
+
+        // Three of them have not been updated for 90 days (the native UPDATE bypasses @UpdateTimestamp)
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE users SET updated_at = :updatedAt WHERE username IN ('an', 'binh', 'chi')")
+                .setParameter("updatedAt", LocalDateTime.now().minusDays(90))
+                .executeUpdate();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void filteredPageLoadsUnitsInTheSameStatement() {
+        List<UserResponseDto> users = inOneStatement(() ->
+                adminUserService.getAllUsers(null, null, true, null, PageRequest.of(0, 10)).getContent());
+
+        assertThat(users).hasSize(4);
+    }
+
+    @Test
+    void searchedPageLoadsUnitsInTheSameStatement() {
+        List<UserResponseDto> users = inOneStatement(() ->
+                adminUserService.getAllUsers(UserRole.STAFF, null, null, "cotowork", PageRequest.of(0, 10)).getContent());
+
+        assertThat(users).extracting(UserResponseDto::getUsername).containsExactlyInAnyOrder("an", "binh", "chi");
+    }
+
+    @Test
+    void usersByRoleLoadUnitsInTheSameStatement() {
+        List<UserResponseDto> users = inOneStatement(() -> adminUserService.getUsersByRole(UserRole.STAFF));
+
+        assertThat(users).hasSize(3);
+    }
+
+    @Test
+    void inactiveUsersLoadUnitsInTheSameStatement() {
+        List<UserResponseDto> users = inOneStatement(() -> adminUserService.getInactiveUsers(30));
+
+        assertThat(users).extracting(UserResponseDto::getUsername).containsExactlyInAnyOrder("an", "binh", "chi");
+    }
+
+    /**
+     * Runs call from an empty persistence context and asserts it prepared exactly one statement;
+     * every returned user must already carry its unit.
+     */
+    private List<UserResponseDto> inOneStatement(Supplier<List<UserResponseDto>> call) {
+        entityManager.clear();
+        statistics.clear();
+        List<UserResponseDto> users = call.get();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(users).allSatisfy(u -> assertThat(u.getUnit().getUnitCode()).isNotNull());
+        return users;
+    }
+}
@@ -0,0 +1,156 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.LoginRequestDto;
+import com.cotowork.userservice.dto.LoginResponseDto;
+import com.cotowork.userservice.entity.Unit;
+import com.cotowork.userservice.entity.User;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.repository.UnitRepository;
+import com.cotowork.userservice.repository.UserRepository;
+import com.cotowork.userservice.security.JwtUtil;
+import com.cotowork.userservice.security.RolePermissionService;
+import com.cotowork.userservice.security.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.cotowork.userservice.service.UserServiceQueryTest.unit;
+import static com.cotowork.userservice.service.UserServiceQueryTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Login storm against a real connection pool: more concurrent logins than hashing threads,
+ * and more hashing threads than pooled connections. While every hashing thread is busy (and
+ * more logins are queued behind them), cheap queries must still get a connection - logins may
+ * not hold one while they wait on BCrypt.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:login-storm;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=" + AuthenticationServiceLoginStormTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)   // seed data must be visible to the login threads
+@Import({AuthenticationService.class, AuthenticationServiceLoginStormTest.HashingConfig.class})
+class AuthenticationServiceLoginStormTest {
+
+    static final int POOL_SIZE = 2;
+    private static final int HASH_THREADS = 4;
+    private static final int LOGINS = 40;
+
+    private static final BlockingEncoder ENCODER = new BlockingEncoder(HASH_THREADS);
+
+    @TestConfiguration
+    static class HashingConfig {
+        @Bean(destroyMethod = "shutdown")
+        PasswordHashingService passwordHashingService() {
+            return new PasswordHashingService(ENCODER, new SimpleMeterRegistry(), HASH_THREADS, 64, 10_000, 1);
+        }
+    }
+
+    /** matches() parks every hashing thread until released, standing in for slow BCrypt */
+    static final class BlockingEncoder implements PasswordEncoder {
+        final CountDownLatch allThreadsHashing;
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingEncoder(int threads) {
+            this.allThreadsHashing = new CountDownLatch(threads);
+        }
+
+        @Override
+        public String encode(CharSequence raw) {
+            return "{test}" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence raw, String encoded) {
+            allThreadsHashing.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS) && encoded.equals(encode(raw));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private RolePermissionService rolePermissionService;
+
+    @MockBean
+    private UserStatusCache userStatusCache;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        Unit sales = unitRepository.save(unit("SALES"));
+        User storm = user("storm", "Login Storm", sales, UserRole.STAFF);
+        storm.setPasswordHash(ENCODER.encode("secret123"));
+        userRepository.save(storm);
+        clients = Executors.newFixedThreadPool(LOGINS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ENCODER.release.countDown();
+        clients.shutdownNow();
+        userRepository.deleteAll();
+        unitRepository.deleteAll();
+    }
+
+    @Test
+    void queuedLoginsDoNotStarveTheConnectionPool() throws Exception {
+        List<Future<LoginResponseDto>> logins = new ArrayList<>();
+        for (int i = 0; i < LOGINS; i++) {
+            logins.add(clients.submit(() -> authenticationService.login(new LoginRequestDto("storm", "secret123"))));
+        }
+
+        // Every hashing thread is parked in BCrypt and the rest of the logins are queued behind them
+        assertThat(ENCODER.allThreadsHashing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // With POOL_SIZE < HASH_THREADS, this times out (2 s) if parked logins hold connections
+        for (int i = 0; i < 10; i++) {
+            assertThat(userRepository.count()).isEqualTo(1);
+        }
+
+        ENCODER.release.countDown();
+        for (Future<LoginResponseDto> login : logins) {
+            assertThat(login.get(10, TimeUnit.SECONDS).getUsername()).isEqualTo("storm");
+        }
+    }
+}
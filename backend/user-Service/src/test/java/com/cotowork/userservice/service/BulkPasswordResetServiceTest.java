@@ -0,0 +1,82 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkPasswordResetServiceTest {
+
+    private UserRepository userRepository;
+    private PasswordHashingService passwordHashingService;
+    private BulkPasswordResetService service;
+
+    /** Transactions begun but not yet committed/rolled back */
+    private final AtomicInteger openTransactions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        passwordHashingService = mock(PasswordHashingService.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            openTransactions.incrementAndGet();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(inv -> openTransactions.decrementAndGet()).when(transactionManager).commit(any());
+        doAnswer(inv -> openTransactions.decrementAndGet()).when(transactionManager).rollback(any());
+
+        when(userRepository.findUsernamesByIdIn(anyCollection())).thenAnswer(inv -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                rows.add(new Object[]{id, "user" + id});
+            }
+            return rows;
+        });
+        when(userRepository.updatePasswordHashes(anyList(), anyList()))
+                .thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+
+        service = new BulkPasswordResetService(userRepository, passwordHashingService, transactionManager, 2);
+    }
+
+    @Test
+    void hashesOutsideAnyTransaction() {
+        List<Integer> openWhileHashing = new ArrayList<>();
+        when(passwordHashingService.encodeAll(anyList())).thenAnswer(inv -> {
+            openWhileHashing.add(openTransactions.get());
+            return inv.<List<?>>getArgument(0).stream().map(p -> "hash:" + p).toList();
+        });
+
+        List<BulkPasswordResetService.IssuedCredential> issued = new ArrayList<>();
+        int reset = service.resetPasswords(List.of(1L, 2L, 3L), issued::addAll);
+
+        assertThat(reset).isEqualTo(3);
+        assertThat(issued).extracting(BulkPasswordResetService.IssuedCredential::username)
+                .containsExactly("user1", "user2", "user3");
+        // 2 chunks, each hashed with no transaction (and so no connection) open
+        assertThat(openWhileHashing).containsExactly(0, 0);
+        assertThat(openTransactions).hasValue(0);
+        verify(userRepository, times(2)).updatePasswordHashes(anyList(), anyList());
+    }
+
+    @Test
+    void writesTheHashOfTheIssuedPassword() {
+        when(passwordHashingService.encodeAll(anyList()))
+                .thenAnswer(inv -> inv.<List<?>>getArgument(0).stream().map(p -> "hash:" + p).toList());
+
+        List<BulkPasswordResetService.IssuedCredential> issued = new ArrayList<>();
+        service.resetPasswords(List.of(7L), issued::addAll);
+
+        verify(userRepository).updatePasswordHashes(List.of(7L), List.of("hash:" + issued.get(0).tempPassword()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.BulkUserFailureDto;
+import com.cotowork.userservice.dto.BulkUserOperationDto;
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.repository.UserRepository;
+import com.cotowork.userservice.security.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkUserOperationServiceTest {
+
+    private static final long REFERENCED_USER = 2L;
+
+    private UserRepository userRepository;
+    private BulkPasswordResetService bulkPasswordResetService;
+    private TokenRevocationService tokenRevocationService;
+    private BulkUserOperationService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        bulkPasswordResetService = mock(BulkPasswordResetService.class);
+        tokenRevocationService = mock(TokenRevocationService.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(bulkPasswordResetService.requireExistingUsers(anyCollection()))
+                .thenAnswer(inv -> List.copyOf(inv.<Collection<Long>>getArgument(0)));
+
+        // A chunk containing the referenced user fails as a whole, like the FK violation in PostgreSQL
+        when(userRepository.deleteByIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            if (ids.contains(REFERENCED_USER)) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            return ids.size();
+        });
+
+        service = new BulkUserOperationService(userRepository, bulkPasswordResetService,
+                mock(UserStatusCache.class), tokenRevocationService, mock(ApplicationEventPublisher.class),
+                transactionManager, 3, 10);
+    }
+
+    private static BulkUserOperationDto request(String operation, List<Long> ids) {
+        return BulkUserOperationDto.builder().operation(operation).userIds(ids).build();
+    }
+
+    @Test
+    void deleteFallsBackToSingleRowsAndReportsReferencedUsers() {
+        BulkUserOperationService.Result result =
+                service.execute(request("DELETE", List.of(1L, 2L, 3L, 4L, 5L)), processed -> { });
+
+        assertThat(result.processed()).isEqualTo(5);
+        assertThat(result.affected()).isEqualTo(4);
+        assertThat(result.failedCount()).isEqualTo(1);
+        assertThat(result.failures()).extracting(BulkUserFailureDto::getUserId).containsExactly(REFERENCED_USER);
+        // First chunk [1,2,3] retried per id; second chunk [4,5] deleted set-based
+        verify(userRepository).deleteByIdIn(List.of(1L, 2L, 3L));
+        verify(userRepository).deleteByIdIn(List.of(1L));
+        verify(userRepository).deleteByIdIn(List.of(3L));
+        verify(userRepository).deleteByIdIn(List.of(4L, 5L));
+        verify(tokenRevocationService, never()).revokeAllForUsers(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void deleteWithoutConstraintViolationsStaysSetBased() {
+        BulkUserOperationService.Result result =
+                service.execute(request("DELETE", List.of(4L, 5L, 6L)), processed -> { });
+
+        assertThat(result.affected()).isEqualTo(3);
+        assertThat(result.failures()).isEmpty();
+        verify(userRepository, times(1)).deleteByIdIn(anyCollection());
+    }
+
+    @Test
+    void constraintViolationsOutsideDeleteAreNotSwallowed() {
+        when(userRepository.updateIsActiveByIdIn(anyCollection(), anyBoolean()))
+                .thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThatThrownBy(() -> service.execute(request("DEACTIVATE", List.of(1L)), processed -> { }))
+                .isInstanceOf(BusinessException.class)
+                .hasCauseInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void failingChunkReportsHowManyUsersWereAlreadyApplied() {
+        // Chunk [1,2,3] commits, chunk [4,5,6] fails, chunk [7] never runs
+        when(userRepository.updateIsActiveByIdIn(anyCollection(), anyBoolean())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            if (ids.contains(4L)) throw new QueryTimeoutException("statement timeout");
+            return ids.size();
+        });
+
+        assertThatThrownBy(() -> service.execute(request("ACTIVATE", List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L)),
+                processed -> { }))
+                .isInstanceOfSatisfying(BusinessException.class, e -> {
+                    assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INTERNAL_SERVER_ERROR);
+                    assertThat(e.getDetail("processedCount")).isEqualTo(3);
+                    assertThat(e.getDetail("totalCount")).isEqualTo(7);
+                });
+        verify(userRepository, times(2)).updateIsActiveByIdIn(anyCollection(), anyBoolean());
+    }
+}
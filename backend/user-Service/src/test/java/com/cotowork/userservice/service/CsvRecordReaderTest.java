@@ -0,0 +1,68 @@
+package com.cotowork.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    void readsPlainRecordsWithLfAndCrLf() throws IOException {
+        assertThat(readAll("username,email\r\nan,an@x.vn\nbinh,binh@x.vn"))
+                .containsExactly(
+                        List.of("username", "email"),
+                        List.of("an", "an@x.vn"),
+                        List.of("binh", "binh@x.vn"));
+    }
+
+    @Test
+    void handlesQuotedCommasQuotesAndNewlines() throws IOException {
+        assertThat(readAll("\"Nguyễn, Văn A\",\"say \"\"hi\"\"\",\"line1\nline2\"\n"))
+                .containsExactly(List.of("Nguyễn, Văn A", "say \"hi\"", "line1\nline2"));
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertThat(readAll("a,,\"\",\n")).containsExactly(List.of("a", "", "", ""));
+    }
+
+    @Test
+    void skipsBlankLines() throws IOException {
+        assertThat(readAll("\n\r\na\n\n\nb\n")).containsExactly(List.of("a"), List.of("b"));
+    }
+
+    @Test
+    void reportsTheLineEachRecordStartsOn() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("h1,h2\n\"x\ny\",2\n\nz,3\n"));
+
+        reader.next();
+        assertThat(reader.recordLine()).isEqualTo(1);
+        assertThat(reader.next()).containsExactly("x\ny", "2");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("z", "3");
+        assertThat(reader.recordLine()).isEqualTo(5);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() {
+        assertThatThrownBy(() -> readAll("a,\"open\nnever closed"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("line 1");
+    }
+}
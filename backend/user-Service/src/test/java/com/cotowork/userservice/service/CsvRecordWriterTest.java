@@ -0,0 +1,63 @@
+package com.cotowork.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRecordWriterTest {
+
+    @Test
+    void quotesOnlyWhenNeeded() {
+        assertThat(CsvRecordWriter.escape("plain")).isEqualTo("plain");
+        assertThat(CsvRecordWriter.escape(null)).isEmpty();
+        assertThat(CsvRecordWriter.escape("")).isEmpty();
+        assertThat(CsvRecordWriter.escape("a,b")).isEqualTo("\"a,b\"");
+        assertThat(CsvRecordWriter.escape("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(CsvRecordWriter.escape("two\nlines")).isEqualTo("\"two\nlines\"");
+        assertThat(CsvRecordWriter.escape(" padded ")).isEqualTo("\" padded \"");
+        assertThat(CsvRecordWriter.escape(42L)).isEqualTo("42");
+    }
+
+    @Test
+    void writtenRowsReadBackUnchanged() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvRecordWriter.writeRow(out, 1L, "Nguyễn, Văn \"A\"", "multi\r\nline", null, true);
+
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(out.toString()));
+        assertThat(reader.next()).containsExactly("1", "Nguyễn, Văn \"A\"", "multi\r\nline", "", "true");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void neutralizesFormulaPrefixesInText() {
+        assertThat(CsvRecordWriter.neutralizeFormula("=HYPERLINK(\"http://evil\")")).isEqualTo("'=HYPERLINK(\"http://evil\")");
+        assertThat(CsvRecordWriter.neutralizeFormula("+84901234567")).isEqualTo("'+84901234567");
+        assertThat(CsvRecordWriter.neutralizeFormula("-2+3")).isEqualTo("'-2+3");
+        assertThat(CsvRecordWriter.neutralizeFormula("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(CsvRecordWriter.neutralizeFormula("\t=1")).isEqualTo("'\t=1");
+        assertThat(CsvRecordWriter.neutralizeFormula("\r=1")).isEqualTo("'\r=1");
+        assertThat(CsvRecordWriter.neutralizeFormula("an@x.vn")).isEqualTo("an@x.vn");
+        assertThat(CsvRecordWriter.neutralizeFormula("")).isEqualTo("");
+    }
+
+    @Test
+    void leavesNonTextValuesAlone() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 3, 4);
+        assertThat(CsvRecordWriter.neutralizeFormula(-5L)).isEqualTo(-5L);
+        assertThat(CsvRecordWriter.neutralizeFormula(createdAt)).isSameAs(createdAt);
+        assertThat(CsvRecordWriter.neutralizeFormula(null)).isNull();
+    }
+
+    @Test
+    void spreadsheetRowsNeutralizeAndStillQuote() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvRecordWriter.writeSpreadsheetRow(out, 7L, "=1+1", "=cmd|' /C calc'!A0,x", "ok");
+
+        assertThat(out.toString()).isEqualTo("7,'=1+1,\"'=cmd|' /C calc'!A0,x\",ok\n");
+    }
+}
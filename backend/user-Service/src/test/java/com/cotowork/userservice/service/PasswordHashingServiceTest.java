@@ -0,0 +1,110 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) service.shutdown();
+    }
+
+    /** One hashing thread, one queue slot */
+    private PasswordHashingService newService(long timeoutMs) {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 1, 1, timeoutMs, 2);
+        return service;
+    }
+
+    private Boolean blockUntilReleased(CountDownLatch started) {
+        started.countDown();
+        try {
+            return release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableWhenThreadAndQueueAreFull() throws Exception {
+        PasswordHashingService hashing = newService(10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(
+                () -> hashing.execute("block", encoder -> blockUntilReleased(started)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(
+                () -> hashing.execute("queued", encoder -> true));
+        awaitQueueSize(1);
+
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> hashing.encode("secret"))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.SERVICE_UNAVAILABLE));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isLessThan(1_000);
+        assertThat(meterRegistry.counter("password.hash.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void timesOutWithServiceUnavailable() throws Exception {
+        PasswordHashingService hashing = newService(100);
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> hashing.execute("block", encoder -> blockUntilReleased(started)))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.counter("password.hash.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rethrowsBusinessExceptionsFromTheWorkUnchanged() {
+        PasswordHashingService hashing = newService(5_000);
+
+        assertThatThrownBy(() -> hashing.execute("change", encoder -> {
+            throw new BusinessException(ErrorCode.INVALID_PASSWORD);
+        })).isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_PASSWORD));
+    }
+
+    @Test
+    void encodeAllKeepsInputOrder() {
+        PasswordHashingService hashing = newService(5_000);
+        List<String> raw = List.of("alpha", "bravo", "charlie", "delta", "echo");
+
+        List<String> hashes = hashing.encodeAll(raw);
+
+        assertThat(hashes).hasSize(raw.size());
+        for (int i = 0; i < raw.size(); i++) {
+            assertThat(hashing.matches(raw.get(i), hashes.get(i))).isTrue();
+        }
+    }
+
+    private void awaitQueueSize(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("password.hash.queue.size").gauge().value() < expected) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
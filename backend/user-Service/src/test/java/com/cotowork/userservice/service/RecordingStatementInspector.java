@@ -0,0 +1,39 @@
+package com.cotowork.userservice.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement Hibernate prepares, so query tests can assert on what hit the database.
+ * Registered through hibernate.session_factory.statement_inspector, which instantiates it by class name.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql.replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT));
+        return sql;
+    }
+
+    static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /** Recorded statements, whitespace-collapsed and lower-cased */
+    static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    /** Statements that read the users table without a WHERE clause, i.e. a findAll() */
+    static List<String> unboundedUserSelects() {
+        return STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("select") && sql.matches(".*\\bfrom users\\b.*"))
+                .filter(sql -> !sql.contains(" where "))
+                .toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserResponseDto;
+import com.cotowork.userservice.entity.Unit;
+import com.cotowork.userservice.entity.User;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.mapper.UnitMapperImpl;
+import com.cotowork.userservice.mapper.UserMapperImpl;
+import com.cotowork.userservice.security.TokenRevocationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs UserService's list endpoints against an in-memory H2 database and checks the SQL they issue:
+ * no scan of the whole users table, and a fixed number of statements however many units the
+ * listed users belong to (no lazy unit load per row).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.cotowork.userservice.service.RecordingStatementInspector"
+})
+@Import({UserService.class, UserMapperImpl.class, UnitMapperImpl.class})
+class UserServiceQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
+    @MockBean
+    private UserStatusCache userStatusCache;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    private Unit sales;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sales = entityManager.persist(unit("SALES"));
+        Unit hr = entityManager.persist(unit("HR"));
+        Unit it = entityManager.persist(unit("IT"));
+        entityManager.persist(user("an", "Nguyen Van An", sales, UserRole.STAFF));
+        entityManager.persist(user("binh", "Tran Thi Binh", sales, UserRole.UNIT_MANAGER));
+        entityManager.persist(user("chi", "Le Minh Chi", sales, UserRole.STAFF));
+        entityManager.persist(user("dung", "Pham Dung", hr, UserRole.ADMIN));
+        entityManager.persist(user("giang", "Vo Giang", it, UserRole.STAFF));
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        RecordingStatementInspector.clear();
+    }
+
+    // ============================================================
+    // NO UNBOUNDED SCANS
+    // ============================================================
+
+    @Test
+    void unitMembersArePagedByUnitInsteadOfScanningAllUsers() {
+        Page<UserResponseDto> page = userService.getUsersByUnit(sales.getId(), 0, 2);
+
+        assertThat(page.getContent()).extracting(UserResponseDto::getUsername).containsExactly("an", "binh");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).allSatisfy(u -> assertThat(u.getUnit().getId()).isEqualTo(sales.getId()));
+        assertThat(RecordingStatementInspector.unboundedUserSelects()).isEmpty();
+    }
+
+    @Test
+    void searchFiltersInTheDatabaseInsteadOfScanningAllUsers() {
+        Page<UserResponseDto> page = userService.searchUsers("TRAN", 0, 10);
+
+        assertThat(page.getContent()).extracting(UserResponseDto::getUsername).containsExactly("binh");
+        assertThat(RecordingStatementInspector.unboundedUserSelects()).isEmpty();
+    }
+
+    @Test
+    void searchTreatsLikeWildcardsLiterally() {
+        assertThat(userService.searchUsers("%", 0, 10).getContent()).isEmpty();
+        assertThat(userService.searchUsers("_", 0, 10).getContent()).isEmpty();
+    }
+
+    // ============================================================
+    // STATEMENT COUNTS
+    // ============================================================
+
+    @Test
+    void getAllUsersLoadsUnitsInTheSameStatement() {
+        long statements = statementsFor(() ->
+                assertThat(userService.getAllUsers()).hasSize(5)
+                        .allSatisfy(u -> assertThat(u.getUnit().getUnitCode()).isNotNull()));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void searchUsesOneIdQueryAndOneLoadQuery() {
+        // Matches users in all three units; fits one page, so no count query is needed
+        long statements = statementsFor(() ->
+                assertThat(userService.searchUsers("cotowork", 0, 10).getContent()).hasSize(5)
+                        .allSatisfy(u -> assertThat(u.getUnit().getUnitCode()).isNotNull()));
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    void unitMembersNeedNoQueryPerRow() {
+        // Unit existence check plus the page
+        long statements = statementsFor(() ->
+                assertThat(userService.getUsersByUnit(sales.getId(), 0, 10).getContent()).hasSize(3)
+                        .allSatisfy(u -> assertThat(u.getUnit().getUnitCode()).isEqualTo("SALES")));
+
+        assertThat(statements).isEqualTo(2);
+    }
+
+    /** JDBC statements prepared while running call, starting from an empty persistence context */
+    private long statementsFor(Runnable call) {
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // ============================================================
+    // FIXTURES
+    // ============================================================
+
+    static Unit unit(String code) {
+        return Unit.builder()
+                .unitCode(code)
+                .unitName(code + " department")
+                .build();
+    }
+
+    static User user(String username, String fullName, Unit unit, UserRole role) {
+        return User.builder()
+                .username(username)
+                .fullName(fullName)
+                .email(username + "@cotowork.test")
+                .passwordHash("{noop}secret")
+                .unit(unit)
+                .role(role)
+                .build();
+    }
+}
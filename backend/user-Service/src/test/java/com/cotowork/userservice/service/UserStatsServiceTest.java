@@ -0,0 +1,177 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserStatsDto;
+import com.cotowork.userservice.entity.UserRole;
+import com.cotowork.userservice.exception.BusinessException;
+import com.cotowork.userservice.exception.ErrorCode;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserStatsServiceTest {
+
+    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
+    private UserStatsService service;
+    private ExecutorService callers;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private volatile CountDownLatch queryGate = new CountDownLatch(0);
+    private volatile long totalUsers = 10;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(userRepository.aggregateUserStats(any(), any())).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            assertThat(queryGate.await(10, TimeUnit.SECONDS)).isTrue();
+            return rows(totalUsers);
+        });
+        callers = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queryGate.countDown();
+        callers.shutdownNow();
+        if (service != null) service.shutdown();
+    }
+
+    /** grouping, role, unit_id, total, active, created this month, created this week */
+    private static List<Object[]> rows(long total) {
+        return List.of(
+                new Object[]{3, null, null, total, total - 2, 4L, 1L},
+                new Object[]{1, "ADMIN", null, 1L, 1L, 0L, 0L},
+                new Object[]{1, "STAFF", null, total - 1, total - 3, 4L, 1L},
+                new Object[]{2, null, 7L, total, total - 2, 4L, 1L});
+    }
+
+    private UserStatsService newService(long ttlMs, long maxStaleMs) {
+        return newService(ttlMs, maxStaleMs, 5_000);
+    }
+
+    private UserStatsService newService(long ttlMs, long maxStaleMs, long waitTimeoutMs) {
+        service = new UserStatsService(userRepository, transactionManager, new SimpleMeterRegistry(),
+                ttlMs, maxStaleMs, waitTimeoutMs);
+        return service;
+    }
+
+    @Test
+    void mapsTheGroupingSetsRows() {
+        UserStatsDto stats = newService(10_000, 60_000).getStats();
+
+        assertThat(stats.getTotalUsers()).isEqualTo(10L);
+        assertThat(stats.getActiveUsers()).isEqualTo(8L);
+        assertThat(stats.getInactiveUsers()).isEqualTo(2L);
+        assertThat(stats.getUsersCreatedThisMonth()).isEqualTo(4L);
+        assertThat(stats.getUsersCreatedThisWeek()).isEqualTo(1L);
+        assertThat(stats.getUsersByRole())
+                .containsEntry("ADMIN", 1L)
+                .containsEntry("STAFF", 9L)
+                .containsEntry("UNIT_MANAGER", 0L)
+                .containsEntry("VIEWER", 0L);
+        assertThat(stats.getUsersByUnit()).containsExactlyEntriesOf(Map.of("7", 10L));
+        assertThat(service.getRoleCounts()).containsEntry(UserRole.STAFF, 9L);
+    }
+
+    @Test
+    void concurrentColdCallersShareOneQuery() throws Exception {
+        UserStatsService stats = newService(10_000, 60_000);
+        queryGate = new CountDownLatch(1);
+
+        List<Future<UserStatsDto>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(stats::getStats));
+        }
+        awaitQueries(1);
+        Thread.sleep(100);   // give every caller time to join the refresh in flight
+        queryGate.countDown();
+
+        for (Future<UserStatsDto> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getTotalUsers()).isEqualTo(10L);
+        }
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void freshSnapshotIsServedWithoutQuerying() {
+        UserStatsService stats = newService(60_000, 120_000);
+        stats.getStats();
+        stats.getStats();
+        stats.getStats();
+
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void staleSnapshotIsServedWhileRefreshingInBackground() throws Exception {
+        UserStatsService stats = newService(0, 60_000);
+        assertThat(stats.getStats().getTotalUsers()).isEqualTo(10L);
+
+        totalUsers = 20;
+        queryGate = new CountDownLatch(1);
+        // Refresh is blocked, yet the caller gets the previous snapshot at once
+        assertThat(callers.submit(stats::getStats).get(1, TimeUnit.SECONDS).getTotalUsers()).isEqualTo(10L);
+
+        queryGate.countDown();
+        awaitQueries(2);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (stats.getStats().getTotalUsers() != 20) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void failedRefreshIsReportedAndRetried() {
+        UserStatsService stats = newService(10_000, 60_000);
+        doThrow(new IllegalStateException("db down")).doAnswer(inv -> rows(5))
+                .when(userRepository).aggregateUserStats(any(), any());
+
+        assertThatThrownBy(stats::getStats).isInstanceOf(IllegalStateException.class);
+        assertThat(stats.getStats().getTotalUsers()).isEqualTo(5L);
+    }
+
+    @Test
+    void coldCallerGivesUpOnAStuckRefresh() {
+        UserStatsService stats = newService(10_000, 60_000, 100);
+        queryGate = new CountDownLatch(1);
+
+        assertThatThrownBy(stats::getStats)
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void returnedStatsAreCopies() {
+        UserStatsService stats = newService(60_000, 120_000);
+        stats.getStats().getUsersByRole().put("ADMIN", 999L);
+
+        assertThat(stats.getStats().getUsersByRole()).containsEntry("ADMIN", 1L);
+    }
+
+    private void awaitQueries(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (queries.get() < expected) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
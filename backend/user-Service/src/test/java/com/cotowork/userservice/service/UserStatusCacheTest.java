@@ -0,0 +1,84 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.entity.User;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class UserStatusCacheTest {
+
+    private static final Long USER_ID = 1L;
+
+    private UserRepository userRepository;
+    private UserStatusCache cache;
+    /** Current value of users.is_active for USER_ID */
+    private final AtomicBoolean activeInDb = new AtomicBoolean(true);
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findById(USER_ID)).thenAnswer(inv -> Optional.of(user(activeInDb.get())));
+        cache = new UserStatusCache(userRepository, mock(StringRedisTemplate.class), new SimpleMeterRegistry(),
+                60_000, 100);
+    }
+
+    private static User user(boolean active) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setIsActive(active);
+        return user;
+    }
+
+    @Test
+    void cachesUntilInvalidated() {
+        assertThat(cache.isActive(USER_ID)).isTrue();
+        assertThat(cache.isActive(USER_ID)).isTrue();
+        verify(userRepository, times(1)).findById(USER_ID);
+
+        activeInDb.set(false);
+        cache.invalidate(USER_ID);
+
+        assertThat(cache.isActive(USER_ID)).isFalse();
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+
+    @Test
+    void loadThatRacesWithAnInvalidationIsNotCached() {
+        // The row is read as active, then deactivated and invalidated before the load is cached
+        when(userRepository.findById(USER_ID)).thenAnswer(inv -> {
+            User stale = user(true);
+            activeInDb.set(false);
+            cache.invalidate(USER_ID);
+            return Optional.of(stale);
+        }).thenAnswer(inv -> Optional.of(user(activeInDb.get())));
+
+        assertThat(cache.isActive(USER_ID)).isTrue();
+        // Without the version check the stale "active" would be served for a full TTL
+        assertThat(cache.isActive(USER_ID)).isFalse();
+        assertThat(cache.isActive(USER_ID)).isFalse();
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+
+    @Test
+    void versionsStayBoundedWithoutLosingRaces() {
+        when(userRepository.findById(USER_ID)).thenAnswer(inv -> {
+            // Enough invalidations of other users to clear the version map mid-load
+            for (long id = 100; id < 300; id++) {
+                cache.invalidate(id);
+            }
+            return Optional.of(user(true));
+        }).thenAnswer(inv -> Optional.of(user(activeInDb.get())));
+
+        cache.isActive(USER_ID);
+        cache.isActive(USER_ID);
+        verify(userRepository, times(2)).findById(USER_ID);
+    }
+}
@@ -0,0 +1,213 @@
+package com.cotowork.userservice.service;
+
+import com.cotowork.userservice.dto.UserSuggestionDto;
+import com.cotowork.userservice.event.UserChangedEvent;
+import com.cotowork.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UserSuggestIndexTest {
+
+    private UserRepository userRepository;
+    private UserSuggestIndex index;
+
+    /** The users table as the repository mock sees it: id, username, fullName, email, unitId, isActive, avatarUrl */
+    private final List<Object[]> table = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        when(userRepository.streamSuggestRows()).thenAnswer(inv -> new ArrayList<>(table).stream());
+        when(userRepository.findSuggestRowsByIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return table.stream().filter(row -> ids.contains((Long) row[0])).toList();
+        });
+        when(userRepository.count()).thenAnswer(inv -> (long) table.size());
+        when(userRepository.findAllIds()).thenAnswer(inv -> table.stream().map(row -> (Long) row[0]).toList());
+        index = new UserSuggestIndex(userRepository, transactionManager, new SimpleMeterRegistry(), 5, 60_000);
+
+        row(1L, "nguyen.an", "Nguyễn Văn An", "an.nguyen@cotowork.vn", 10L, true);
+        row(2L, "dung.tran", "Trần Đức Dũng", "dung@cotowork.vn", 10L, true);
+        row(3L, "anh.le", "Lê Thị Ánh", "anh.le@cotowork.vn", 20L, true);
+        row(4L, "an.pham", "Phạm An", "an.pham@cotowork.vn", 20L, false);
+    }
+
+    private void row(Long id, String username, String fullName, String email, Long unitId, boolean active) {
+        table.removeIf(row -> row[0].equals(id));
+        table.add(new Object[]{id, username, fullName, email, unitId, active, null});
+    }
+
+    private List<Long> ids(List<UserSuggestionDto> suggestions) {
+        return suggestions.stream().map(UserSuggestionDto::getId).toList();
+    }
+
+    // ============================================================
+    // TOKENIZE
+    // ============================================================
+
+    @Test
+    void tokenizeFoldsVietnameseAccentsAndSplitsWords() {
+        assertThat(UserSuggestIndex.tokenize("Nguyễn Văn Đạt")).containsExactly("nguyen", "van", "dat");
+        assertThat(UserSuggestIndex.tokenize("đỗ.THỊ_hà@cotowork.vn")).containsExactly("do", "thi", "ha", "cotowork", "vn");
+        assertThat(UserSuggestIndex.tokenize("  ")).isEmpty();
+        assertThat(UserSuggestIndex.tokenize(null)).isEmpty();
+    }
+
+    // ============================================================
+    // SUGGEST
+    // ============================================================
+
+    @Test
+    void returnsNothingBeforeTheBuild() {
+        assertThat(index.suggest("an", null, false, 5)).isEmpty();
+    }
+
+    @Test
+    void matchesAccentInsensitivePrefixes() {
+        index.build();
+
+        assertThat(ids(index.suggest("dun", null, false, 5))).containsExactly(2L);
+        assertThat(ids(index.suggest("Dũng", null, false, 5))).containsExactly(2L);
+        assertThat(ids(index.suggest("tran", null, false, 5))).containsExactly(2L);
+    }
+
+    @Test
+    void exactWordMatchesRankFirst() {
+        index.build();
+
+        // "an" is a whole word for users 1 and 4, only a prefix ("anh") for user 3
+        List<Long> found = ids(index.suggest("an", null, false, 5));
+        assertThat(found).containsExactlyInAnyOrder(1L, 3L, 4L);
+        assertThat(found.get(2)).isEqualTo(3L);
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        index.build();
+
+        assertThat(ids(index.suggest("an nguyen", null, false, 5))).containsExactly(1L);
+        assertThat(ids(index.suggest("an tran", null, false, 5))).isEmpty();
+    }
+
+    @Test
+    void filtersByUnitAndActiveState() {
+        index.build();
+
+        assertThat(ids(index.suggest("an", 20L, false, 5))).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(ids(index.suggest("an", 20L, true, 5))).containsExactly(3L);
+        assertThat(ids(index.suggest("an", 99L, false, 5))).isEmpty();
+    }
+
+    @Test
+    void limitIsCappedByMaxLimit() {
+        for (long id = 100; id < 120; id++) {
+            row(id, "user" + id, "Hoàng Văn " + id, "user" + id + "@cotowork.vn", 30L, true);
+        }
+        index.build();
+
+        assertThat(index.suggest("hoang", null, false, 3)).hasSize(3);
+        assertThat(index.suggest("hoang", null, false, 1_000)).hasSize(5);
+    }
+
+    @Test
+    void topKFor100kUsersIsAnsweredUnderAMillisecond() {
+        String[] family = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng", "Bùi", "Đỗ"};
+        String[] middle = {"Văn", "Thị", "Đức", "Minh", "Ngọc", "Thanh", "Quang", "Hữu"};
+        String[] given = {"An", "Anh", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hiếu", "Hoa", "Hùng",
+                "Khánh", "Lan", "Linh", "Long", "Mai", "Nam", "Nga", "Phúc", "Quân", "Sơn", "Tâm", "Thảo", "Trang",
+                "Tuấn", "Vy", "Yến"};
+        table.clear();
+        for (long id = 1; id <= 100_000; id++) {
+            String f = family[(int) (id % family.length)];
+            String m = middle[(int) (id / 7 % middle.length)];
+            String g = given[(int) (id / 13 % given.length)];
+            table.add(new Object[]{id, "user" + id, f + " " + m + " " + g + " " + id, "user" + id + "@cotowork.vn",
+                    id % 50, id % 10 != 0, null});
+        }
+        index.build();
+
+        String[] queries = {"ng", "nguyen", "tran thi", "le van hung", "hoa", "user123", "dang minh", "vy", "tuan 9"};
+        int rounds = 200;
+        long[] nanos = new long[rounds * queries.length];
+        int n = 0;
+        for (int round = -50; round < rounds; round++) {   // the first 50 rounds are JIT warm-up
+            for (String q : queries) {
+                long start = System.nanoTime();
+                List<UserSuggestionDto> found = index.suggest(q, round % 2 == 0 ? null : 7L, round % 3 == 0, 5);
+                long elapsed = System.nanoTime() - start;
+                if (round >= 0) nanos[n++] = elapsed;
+                assertThat(found).hasSizeLessThanOrEqualTo(5);
+            }
+        }
+        java.util.Arrays.sort(nanos);
+        long median = nanos[nanos.length / 2];
+        long p99 = nanos[nanos.length * 99 / 100];
+        System.out.printf("[Benchmark] suggest over 100k users: median %.1f us, p99 %.1f us%n", median / 1e3, p99 / 1e3);
+
+        assertThat(median).isLessThan(1_000_000L);
+    }
+
+    // ============================================================
+    // MAINTENANCE
+    // ============================================================
+
+    @Test
+    void changesAreAppliedAfterCommit() {
+        index.build();
+
+        row(2L, "dung.tran", "Trần Đức Dũng", "dung@cotowork.vn", 20L, true);
+        index.onUserChanged(UserChangedEvent.of(2L));
+        assertThat(ids(index.suggest("dung", 20L, false, 5))).containsExactly(2L);
+
+        table.removeIf(row -> row[0].equals(2L));
+        index.onUserChanged(UserChangedEvent.of(2L));
+        assertThat(index.suggest("dung", null, false, 5)).isEmpty();
+    }
+
+    @Test
+    void changesDuringTheBuildAreReplayedAfterIt() {
+        // The change commits while the build is streaming, after its row was read
+        when(userRepository.streamSuggestRows()).thenAnswer(inv -> {
+            List<Object[]> snapshot = new ArrayList<>(table);
+            row(1L, "nguyen.binh", "Nguyễn Văn Bình", "binh.nguyen@cotowork.vn", 10L, true);
+            index.onUserChanged(UserChangedEvent.of(1L));
+            return snapshot.stream();
+        });
+
+        index.build();
+
+        assertThat(ids(index.suggest("binh", null, false, 5))).containsExactly(1L);
+        assertThat(ids(index.suggest("an nguyen", null, false, 5))).isEmpty();
+    }
+
+    @Test
+    void reconcilePicksUpChangesWithoutEvents() {
+        index.build();
+
+        // Written on another instance: one user updated, one deleted, one inserted
+        row(3L, "anh.le", "Lê Thị Ánh", "anh.le@cotowork.vn", 20L, false);
+        table.removeIf(row -> row[0].equals(4L));
+        row(5L, "an.vo", "Võ An", "an.vo@cotowork.vn", 10L, true);
+        when(userRepository.findSuggestRowsUpdatedSince(any()))
+                .thenAnswer(inv -> table.stream().filter(row -> (Long) row[0] == 3L || (Long) row[0] == 5L).toList());
+
+        index.reconcile();
+
+        assertThat(ids(index.suggest("an", null, true, 5))).containsExactlyInAnyOrder(1L, 5L);
+        assertThat(ids(index.suggest("pham", null, false, 5))).isEmpty();
+    }
+}
@@ -9,7 +9,7 @@ const TASK_BASE = import.meta.env.VITE_TASK_API_BASE_URL || 'http://localhost:80
 const SOCKJS_URL = TASK_BASE.replace('/api', '/ws');
 
 export function useNotifications() {
-    const { isAuthenticated, loading: authLoading } = useAuth();
+    const { user, isAuthenticated, loading: authLoading } = useAuth();
     const [notifications, setNotifications] = useState([]);
     const [unreadCount,   setUnreadCount]   = useState(0);
     const [totalPages,    setTotalPages]    = useState(0);
@@ -58,15 +58,21 @@ export function useNotifications() {
         }
     }, []);
 
+    // Chỉ đánh dấu tới receipt mới nhất đang hiển thị; thông báo đến sau vẫn chưa đọc
     const markAllAsRead = useCallback(async () => {
+        const upToId = Math.max(0, ...notifications
+            .map(n => n.id)
+            .filter(id => typeof id === 'number'));
+        if (upToId === 0) return;
         try {
-            await notificationService.markAllAsRead();
-            setNotifications(prev => prev.map(n => ({ ...n, isRead: true })));
-            setUnreadCount(0);
+            const data = await notificationService.markAllAsRead(upToId);
+            setNotifications(prev => prev.map(n =>
+                typeof n.id === 'number' && n.id <= upToId ? { ...n, isRead: true } : n));
+            setUnreadCount(data.unreadCount ?? 0);
         } catch (e) {
             console.error('[Notif] markAllAsRead error:', e.message);
         }
-    }, []);
+    }, [notifications]);
 
     // ── Fetch: CHỈ khi auth xong và đã login ────────────────
     useEffect(() => {
@@ -87,20 +93,39 @@ export function useNotifications() {
 
         const client = new Client({
             webSocketFactory: () => new SockJS(SOCKJS_URL),
-            connectHeaders: { Authorization: `Bearer ${token}` },
+            // x-notification-batch: server gộp các thông báo liên tiếp thành 1 frame mảng
+            connectHeaders: { Authorization: `Bearer ${token}`, 'x-notification-batch': '1' },
             reconnectDelay: 5000,
             onConnect: () => {
                 setWsConnected(true);
-                client.subscribe('/user/queue/notifications', (msg) => {
-                    const payload = JSON.parse(msg.body);
+                client.subscribe('/user/queue/notifications-batch', (msg) => {
+                    const batch = JSON.parse(msg.body);
+                    if (!Array.isArray(batch) || batch.length === 0) return;
 
+                    // Server gửi theo thứ tự cũ → mới, danh sách hiển thị mới nhất lên đầu
+                    const items = batch.map(p => ({ ...p, isRead: false })).reverse();
+                    const latest = batch[batch.length - 1];
 
-                    setNotifications(prev => [{ ...payload, isRead: false }, ...prev]);
-                    setUnreadCount(payload.unreadCount ?? 0);
-                    setLatestNotification({ ...payload, _ts: Date.now() });
+                    setNotifications(prev => [...items, ...prev]);
+                    setUnreadCount(latest.unreadCount ?? 0);
+                    setLatestNotification({ ...latest, _ts: Date.now() });
 
-                    triggerPush(payload);
+                    batch.forEach(p => triggerPush(p));
                 });
+
+                // Thông báo toàn phòng ban: server publish 1 lần cho cả unit,
+                // id receipt + unreadCount của mình lấy lại bằng fetch
+                if (user?.unitId) {
+                    client.subscribe(`/topic/unit/${user.unitId}/notifications`, (msg) => {
+                        const payload = JSON.parse(msg.body);
+                        if (payload.senderId === user.userId) return;
+
+                        fetchNotifications(0);
+                        setLatestNotification({ ...payload, id: `unit-${payload.messageId}`, _ts: Date.now() });
+
+                        triggerPush({ ...payload, id: `unit-${payload.messageId}` });
+                    });
+                }
             },
             onDisconnect: () => setWsConnected(false),
             onStompError: (f) => console.error('[WS]', f.headers['message']),
@@ -109,7 +134,7 @@ export function useNotifications() {
         client.activate();
         stompRef.current = client;
         return () => { client.deactivate(); stompRef.current = null; };
-    }, [authLoading, isAuthenticated]);
+    }, [authLoading, isAuthenticated, user?.unitId, user?.userId, fetchNotifications]);
 
     function triggerPush(payload) {
         if ('Notification' in window && Notification.permission === 'granted') {
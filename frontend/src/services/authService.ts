@@ -39,8 +39,10 @@ class AuthService {
    */
   async logout(): Promise<void> {
     try {
-      // SỬA: Chỉ truyền <void> hoặc bỏ trống nếu không cần type trả về
-      await apiClient.post<void>('/auth/logout');
+      // Gửi kèm refresh token để server thu hồi luôn, không thì /refresh vẫn cấp token mới
+      await apiClient.post<void>('/auth/logout', {
+        refreshToken: localStorage.getItem('refreshToken'),
+      });
     } catch (error) {
       console.error('Logout error:', error);
     } finally {
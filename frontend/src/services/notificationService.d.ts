@@ -11,7 +11,7 @@ declare const notificationService: {
     }>;
     getUnreadCount:    () => Promise<{ unreadCount: number }>;
     markAsRead:        (id: number) => Promise<{ success: boolean; unreadCount: number }>;
-    markAllAsRead:     () => Promise<{ success: boolean; markedCount: number; unreadCount: number }>;
+    markAllAsRead:     (upToId: number) => Promise<{ success: boolean; markedCount: number; unreadCount: number }>;
     sendNotification:  (payload: any) => Promise<{ success: boolean; sentCount: number }>;
 };
 
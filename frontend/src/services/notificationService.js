@@ -70,9 +70,9 @@ const notificationService = {
     markAsRead: (id) =>
         client.patch(`/notifications/${id}/read`),
 
-    // PATCH /notifications/read-all
-    markAllAsRead: () =>
-        client.patch('/notifications/read-all'),
+    // PATCH /notifications/read-all?upToId=  (id receipt mới nhất đang hiển thị; bỏ trống → mới nhất trên server)
+    markAllAsRead: (upToId) =>
+        client.patch('/notifications/read-all', null, { params: upToId != null ? { upToId } : {} }),
 
     // POST /notifications/send  (Admin only)
     sendNotification: (payload) =>
@@ -1,4 +1,4 @@
-import { apiClient } from './api';
+import api, { apiClient } from './api';
 
 export interface UnitDto {
     id?: number;
@@ -10,6 +10,9 @@ export interface UnitDto {
     phoneNumber?: string;
 }
 
+// Backend trả thành viên theo trang (tối đa 1000/trang), tổng số nằm trong header X-Total-Count
+const MEMBERS_PAGE_SIZE = 500;
+
 const unitService = {
     // GET /api/units
     getAllUnits: async () => apiClient.get('/units'),
@@ -26,8 +29,20 @@ const unitService = {
     // DELETE /api/units/{id}
     deleteUnit: async (id: number) => apiClient.delete(`/units/${id}`),
 
-    // GET /api/users/unit/{unitId}
-    getUnitMembers: async (unitId: number) => apiClient.get(`/users/unit/${unitId}`),
+    // GET /api/users/unit/{unitId}?page=&size= — gom đủ các trang để trả về toàn bộ thành viên
+    getUnitMembers: async <T = unknown>(unitId: number): Promise<T[]> => {
+        const members: T[] = [];
+        for (let page = 0; ; page++) {
+            const res = await api.get<T[]>(`/users/unit/${unitId}`, {
+                params: { page, size: MEMBERS_PAGE_SIZE },
+            });
+            const batch = Array.isArray(res.data) ? res.data : [];
+            members.push(...batch);
+            const total = Number(res.headers['x-total-count']);
+            const done = Number.isFinite(total) ? members.length >= total : batch.length < MEMBERS_PAGE_SIZE;
+            if (done || batch.length === 0) return members;
+        }
+    },
 };
 
 export default unitService;
\ No newline at end of file